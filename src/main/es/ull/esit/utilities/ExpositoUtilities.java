@@ -7,6 +7,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -66,16 +67,23 @@ public class ExpositoUtilities {
 
     /**
      * @brief Method to simplify a string.
+     * @details Tabs become spaces, every run of spaces becomes a single space and the
+     * string is trimmed, in one pass without regular expressions.
      * @param string
      * @return The simplified string.
      */
     public static String simplifyString(String string) {
-        string = string.replaceAll("\t", " ");
-        for (int i = 0; i < 50; i++) {
-            string = string.replaceAll("  ", " ");
+        StringBuilder simplified = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '\t') {
+                c = ' ';
+            }
+            if (c != ' ' || simplified.length() == 0 || simplified.charAt(simplified.length() - 1) != ' ') {
+                simplified.append(c);
+            }
         }
-        string = string.trim();
-        return string;
+        return simplified.toString().trim();
     }
 
     /**
@@ -118,6 +126,44 @@ public class ExpositoUtilities {
         writer.close();
     }
 
+    /**
+     * @brief Formatters and buffers of a thread, reused by the format methods.
+     * @details DecimalFormat is not thread-safe, so every thread gets its own copies.
+     */
+    private static final class Formatters {
+        private DecimalFormat[] decimalFormats = new DecimalFormat[8];
+        private final StringBuffer digits = new StringBuffer();
+        private final FieldPosition position = new FieldPosition(0);
+        private final StringBuilder cell = new StringBuilder();
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * @brief Method to get the formatter of a number of decimals, compiling it the first time.
+         * @param zeros Number of decimals.
+         * @return The formatter.
+         */
+        private DecimalFormat getDecimalFormat(int zeros) {
+            zeros = Math.max(zeros, 0);
+            if (zeros >= this.decimalFormats.length) {
+                this.decimalFormats = Arrays.copyOf(this.decimalFormats, zeros + 1);
+            }
+            if (this.decimalFormats[zeros] == null) {
+                String format = "0.";
+                for (int i = 0; i < zeros; i++) {
+                    format += "0";
+                }
+                DecimalFormat decimalFormatter = new DecimalFormat(format);
+                DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+                symbols.setDecimalSeparator('.');
+                decimalFormatter.setDecimalFormatSymbols(symbols);
+                this.decimalFormats[zeros] = decimalFormatter;
+            }
+            return this.decimalFormats[zeros];
+        }
+    }
+
+    private static final ThreadLocal<Formatters> FORMATTERS = ThreadLocal.withInitial(Formatters::new);
+
     /**
      * @brief Method to get the format of a string.
      * @param string
@@ -139,11 +185,7 @@ public class ExpositoUtilities {
      * @return The format of the double.
      */
     public static String getFormat(double value) {
-        DecimalFormat decimalFormatter = new DecimalFormat("0.000");
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
-        symbols.setDecimalSeparator('.');
-        decimalFormatter.setDecimalFormatSymbols(symbols);
-        return decimalFormatter.format(value);
+        return ExpositoUtilities.getFormat(value, 3);
     }
 
     /**
@@ -153,15 +195,78 @@ public class ExpositoUtilities {
      * @return The format of the double.
      */
     public static String getFormat(double value, int zeros) {
-        String format = "0.";
-        for (int i = 0; i < zeros; i++) {
-            format += "0";
+        Formatters formatters = FORMATTERS.get();
+        formatters.digits.setLength(0);
+        formatters.getDecimalFormat(zeros).format(value, formatters.digits, formatters.position);
+        return formatters.digits.toString();
+    }
+
+    /**
+     * @brief Method to append the format of a double to a builder.
+     * @param builder
+     * @param value
+     * @param zeros
+     * @return The builder.
+     */
+    public static StringBuilder appendFormat(StringBuilder builder, double value, int zeros) {
+        Formatters formatters = FORMATTERS.get();
+        formatters.digits.setLength(0);
+        formatters.getDecimalFormat(zeros).format(value, formatters.digits, formatters.position);
+        return builder.append(formatters.digits);
+    }
+
+    /**
+     * @brief Method to append a text to a builder, padded with spaces up to a width.
+     * @param builder
+     * @param text
+     * @param width
+     * @param alignment
+     * @return The builder.
+     */
+    public static StringBuilder appendFormat(StringBuilder builder, CharSequence text, int width, int alignment) {
+        CharSequence cell = text == null ? "null" : text;
+        if (alignment == ExpositoUtilities.ALIGNMENT_LEFT) {
+            builder.append(cell);
+        }
+        for (int i = cell.length(); i < width; i++) {
+            builder.append(' ');
+        }
+        if (alignment != ExpositoUtilities.ALIGNMENT_LEFT) {
+            builder.append(cell);
+        }
+        return builder;
+    }
+
+    /**
+     * @brief Method to append a string as a cell, formatting it if it is a double.
+     * @param builder
+     * @param string
+     */
+    private static void appendCell(StringBuilder builder, String string) {
+        if (string != null && !ExpositoUtilities.isInteger(string)) {
+            try {
+                ExpositoUtilities.appendFormat(builder, Double.parseDouble(string), 3);
+                return;
+            } catch (NumberFormatException e) {
+            }
+        }
+        builder.append(string);
+    }
+
+    /**
+     * @brief Method to append a row of cells to a builder.
+     * @param builder
+     * @param strings
+     * @param width
+     * @param alignment
+     */
+    private static void appendRow(StringBuilder builder, String[] strings, int[] width, int[] alignment) {
+        StringBuilder cell = FORMATTERS.get().cell;
+        for (int i = 0; i < strings.length; i++) {
+            cell.setLength(0);
+            ExpositoUtilities.appendCell(cell, strings[i]);
+            ExpositoUtilities.appendFormat(builder, cell, width[i], alignment[i]);
         }
-        DecimalFormat decimalFormatter = new DecimalFormat(format);
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
-        symbols.setDecimalSeparator('.');
-        decimalFormatter.setDecimalFormatSymbols(symbols);
-        return decimalFormatter.format(value);
     }
 
     /**
@@ -182,16 +287,9 @@ public class ExpositoUtilities {
      * @return The format of the string.
      */
     public static String getFormat(String string, int width, int alignment) {
-        String format = "";
-        if (alignment == ExpositoUtilities.ALIGNMENT_LEFT) {
-            format = "%-" + width + "s";
-        } else {
-            format = "%" + 1 + "$" + width + "s";
-        }
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
-        symbols.setDecimalSeparator('.');
-        String[] data = new String[]{string};
-        return String.format(format, (Object[]) data);
+        StringBuilder text = FORMATTERS.get().text;
+        text.setLength(0);
+        return ExpositoUtilities.appendFormat(text, string, width, alignment).toString();
     }
 
     /**
@@ -201,15 +299,14 @@ public class ExpositoUtilities {
      * @return The format of the string.
      */
     public static String getFormat(ArrayList<String> strings, int width) {
-        String format = "";
+        Formatters formatters = FORMATTERS.get();
+        formatters.text.setLength(0);
         for (int i = 0; i < strings.size(); i++) {
-            format += "%" + (i + 1) + "$" + width + "s";
-        }
-        String[] data = new String[strings.size()];
-        for (int t = 0; t < strings.size(); t++) {
-            data[t] = "" + ExpositoUtilities.getFormat(strings.get(t));
+            formatters.cell.setLength(0);
+            ExpositoUtilities.appendCell(formatters.cell, strings.get(i));
+            ExpositoUtilities.appendFormat(formatters.text, formatters.cell, width, ExpositoUtilities.ALIGNMENT_RIGHT);
         }
-        return String.format(format, (Object[]) data);
+        return formatters.text.toString();
     }
 
     /**
@@ -218,15 +315,14 @@ public class ExpositoUtilities {
      * @return The format of the string.
      */
     public static String getFormat(ArrayList<Integer> strings) {
-        String format = "";
+        Formatters formatters = FORMATTERS.get();
+        formatters.text.setLength(0);
         for (int i = 0; i < strings.size(); i++) {
-            format += "%" + (i + 1) + "$" + DEFAULT_COLUMN_WIDTH + "s";
+            formatters.cell.setLength(0);
+            formatters.cell.append(strings.get(i));
+            ExpositoUtilities.appendFormat(formatters.text, formatters.cell, DEFAULT_COLUMN_WIDTH, ExpositoUtilities.ALIGNMENT_RIGHT);
         }
-        Integer[] data = new Integer[strings.size()];
-        for (int t = 0; t < strings.size(); t++) {
-            data[t] = strings.get(t);
-        }
-        return String.format(format, (Object[]) data);
+        return formatters.text.toString();
     }
 
     /**
@@ -250,19 +346,20 @@ public class ExpositoUtilities {
      * @return The format of the string.
      */
     public static String getFormat(String[][] matrixStrings, int width) {
-        String result = "";
+        StringBuilder text = FORMATTERS.get().text;
+        text.setLength(0);
         for (int i = 0; i < matrixStrings.length; i++) {
             String[] strings = matrixStrings[i];
             int[] alignment = new int[strings.length];
             Arrays.fill(alignment, ExpositoUtilities.ALIGNMENT_RIGHT);
             int[] widths = new int[strings.length];
             Arrays.fill(widths, width);
-            result += ExpositoUtilities.getFormat(strings, widths, alignment);
+            ExpositoUtilities.appendRow(text, strings, widths, alignment);
             if (i < (matrixStrings.length - 1)) {
-                result += "\n";
+                text.append("\n");
             }
         }
-        return result;
+        return text.toString();
     }
 
     /**
@@ -289,19 +386,6 @@ public class ExpositoUtilities {
         return ExpositoUtilities.getFormat(strings, widths, alignment);
     }
 
-    /**
-     * @brief Method to get the format of a string.
-     * @param strings
-     * @param width
-     * @param alignment
-     * @return The format of the string.
-     */
-    public static String getFormat(String[] strings, int[] width) {
-        int[] alignment = new int[strings.length];
-        Arrays.fill(alignment, ExpositoUtilities.ALIGNMENT_RIGHT);
-        return ExpositoUtilities.getFormat(strings, width, alignment);
-    }
-
     /**
      * @brief Method to get the format of a string.
      * @param strings
@@ -310,27 +394,22 @@ public class ExpositoUtilities {
      * @return The format of the string.
      */
     public static String getFormat(String[] strings, int[] width, int[] alignment) {
-        String format = "";
-        for (int i = 0; i < strings.length; i++) {
-            if (alignment[i] == ExpositoUtilities.ALIGNMENT_LEFT) {
-                format += "%" + (i + 1) + "$-" + width[i] + "s";
-            } else {
-                format += "%" + (i + 1) + "$" + width[i] + "s";
-            }
-        }
-        String[] data = new String[strings.length];
-        for (int t = 0; t < strings.length; t++) {
-            data[t] = "" + ExpositoUtilities.getFormat(strings[t]);
-        }
-        return String.format(format, (Object[]) data);
+        StringBuilder text = FORMATTERS.get().text;
+        text.setLength(0);
+        ExpositoUtilities.appendRow(text, strings, width, alignment);
+        return text.toString();
     }
 
     /**
      * @brief Method to know if a string is an integer.
+     * @details Strings with a point are rejected without trying to parse them.
      * @param str
      * @return True if the string is an integer, false otherwise.
      */
     public static boolean isInteger(String str) {
+        if (str != null && str.indexOf('.') >= 0) {
+            return false;
+        }
         try {
             Integer.parseInt(str);
             return true;
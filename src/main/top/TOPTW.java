@@ -9,6 +9,7 @@ import es.ull.esit.utilities.ExpositoUtilities;
  * @brief Class to represent the TOPTW problem.
  */
 public class TOPTW {
+    public static final int SCORE_HISTOGRAM_BINS = 10;
     private int nodes;
     private double[] x;
     private double[] y;
@@ -20,7 +21,16 @@ public class TOPTW {
     private int depots;
     private double maxTimePerRoute;
     private double maxRoutes;
-    private double[][] distanceMatrix;
+    private TOPTWDistanceMatrix.Storage distanceStorage;
+    private TOPTWDistanceMatrix distanceMatrix;
+    private long[] compatibilityMatrix;
+    private int[] nodeIndex;
+    private double maxScore;
+    private double minScore;
+    private double totalScore;
+    private int[] scoreHistogram;
+    private double[] scoreMembership;
+    private volatile boolean scoreStatisticsStale;
 
     /**
      * @brief Constructor of the class.
@@ -36,14 +46,23 @@ public class TOPTW {
         this.readyTime = new double[this.nodes + 1];
         this.dueTime = new double[this.nodes + 1];
         this.serviceTime = new double[this.nodes + 1];
-        this.distanceMatrix = new double[this.nodes + 1][this.nodes + 1];
-        for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                this.distanceMatrix[i][j] = 0.0;
-            }
-        }
+        this.scoreStatisticsStale = true;
+        this.distanceStorage = TOPTWDistanceMatrix.Storage.forSize(this.nodes + 1);
         this.maxRoutes = routes;
         this.vehicles = routes;
+        this.buildNodeIndex();
+    }
+
+    /**
+     * @brief Method to build the table that maps every node id to the index of its data.
+     * @details Depot copies (ids greater than the number of nodes, one per extra route)
+     * map to 0 and every other node to itself, so getters resolve a node with one array read.
+     */
+    private void buildNodeIndex() {
+        this.nodeIndex = new int[this.nodes + Math.max(this.vehicles, 1)];
+        for (int i = 0; i < this.nodeIndex.length; i++) {
+            this.nodeIndex[i] = this.isDepot(i) ? 0 : i;
+        }
     }
 
     /**
@@ -103,22 +122,90 @@ public class TOPTW {
 
     /**
      * @brief Method to calculate the distance matrix.
+     * @details The matrix is allocated with the current storage mode. Distances are symmetric,
+     * so only the upper half is computed and the diagonal keeps the initial 0. In LAZY mode
+     * nothing is computed here and distances are obtained from the coordinates when requested.
      */
     public void calculateDistanceMatrix() {
+        if (this.distanceStorage == TOPTWDistanceMatrix.Storage.LAZY) {
+            this.distanceMatrix = new TOPTWLazyDistanceMatrix(this.x, this.y, this.nodes + 1);
+            return;
+        }
+        this.distanceMatrix = TOPTWDistanceMatrix.create(this.distanceStorage, this.nodes + 1);
         for (int i = 0; i < this.nodes + 1; i++) {
-            for (int j = 0; j < this.nodes + 1; j++) {
-                if (i != j) {
-                    double diffXs = this.x[i] - this.x[j];
-                    double diffYs = this.y[i] - this.y[j];
-                    this.distanceMatrix[i][j] = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
-                    this.distanceMatrix[j][i] = this.distanceMatrix[i][j];
-                } else {
-                    this.distanceMatrix[i][j] = 0.0;
+            for (int j = i + 1; j < this.nodes + 1; j++) {
+                double diffXs = this.x[i] - this.x[j];
+                double diffYs = this.y[i] - this.y[j];
+                this.distanceMatrix.set(i, j, Math.sqrt(diffXs * diffXs + diffYs * diffYs));
+            }
+        }
+    }
+
+    /**
+     * @brief Method to calculate which nodes can follow each node in a route.
+     * @details j can follow i if leaving i as early as possible, after its ready time and
+     * service (or at time 0 from the depot), reaches j strictly before its due time. Real
+     * departures are never earlier than that bound, so an incompatible arc is never feasible.
+     * The result is a bitset of (nodes+1)^2 bits; it is not built for LAZY distances, where
+     * every arc is reported as compatible. Changing a ready, due or service time discards it,
+     * so it has to be calculated again after the time windows are modified.
+     */
+    public void calculateCompatibilityMatrix() {
+        if (this.distanceStorage == TOPTWDistanceMatrix.Storage.LAZY) {
+            this.compatibilityMatrix = null;
+            return;
+        }
+        int size = this.nodes + 1;
+        this.compatibilityMatrix = new long[Math.toIntExact(((long) size * size + 63) >>> 6)];
+        for (int i = 0; i < size; i++) {
+            double earliestDeparture = (i == 0) ? 0.0 : this.readyTime[i] + this.serviceTime[i];
+            for (int j = 0; j < size; j++) {
+                if (earliestDeparture + this.distanceMatrix.get(i, j) < this.dueTime[j]) {
+                    long bit = (long) i * size + j;
+                    this.compatibilityMatrix[(int) (bit >>> 6)] |= 1L << bit;
                 }
             }
         }
     }
 
+    /**
+     * @brief Method to know if a node can follow another one in a route.
+     * @param i
+     * @param j
+     * @return False if j can never be visited right after i, true otherwise.
+     */
+    public boolean isCompatible(int i, int j) {
+        if (this.compatibilityMatrix == null) {
+            return true;
+        }
+        long bit = (long) this.nodeIndex[i] * (this.nodes + 1) + this.nodeIndex[j];
+        return (this.compatibilityMatrix[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * @brief Method to get the storage mode of the distance matrix.
+     * @return The storage mode.
+     */
+    public TOPTWDistanceMatrix.Storage getDistanceStorage() {
+        return this.distanceStorage;
+    }
+
+    /**
+     * @brief Method to set the storage mode of the distance matrix.
+     * @details By default problems above TOPTWDistanceMatrix.LAZY_THRESHOLD nodes use LAZY and the
+     * rest FLAT. If the matrices were already calculated they are calculated again with the new mode.
+     * @param distanceStorage
+     */
+    public void setDistanceStorage(TOPTWDistanceMatrix.Storage distanceStorage) {
+        this.distanceStorage = distanceStorage;
+        if (this.distanceMatrix != null) {
+            this.calculateDistanceMatrix();
+        }
+        if (this.compatibilityMatrix != null || distanceStorage == TOPTWDistanceMatrix.Storage.LAZY) {
+            this.calculateCompatibilityMatrix();
+        }
+    }
+
     /**
      * @brief Method to get the maximum time per route.
      */
@@ -164,9 +251,16 @@ public class TOPTW {
      * @return double value.
      */
     public double getDistance(int i, int j) {
-        if(this.isDepot(i)) { i=0; }
-        if(this.isDepot(j)) { j=0; }
-        return this.distanceMatrix[i][j];
+        return this.distanceMatrix.get(this.nodeIndex[i], this.nodeIndex[j]);
+    }
+
+    /**
+     * @brief Method to get the distance matrix.
+     * @details It is indexed without the depot remapping: depot copies must be mapped to 0.
+     * @return The distance matrix, null if it was not calculated.
+     */
+    TOPTWDistanceMatrix getDistanceMatrix() {
+        return this.distanceMatrix;
     }
 
     /**
@@ -176,9 +270,7 @@ public class TOPTW {
      * @return double value.
      */
     public double getTime(int i, int j) {
-        if(this.isDepot(i)) { i=0; }
-        if(this.isDepot(j)) { j=0; }
-        return this.distanceMatrix[i][j];
+        return this.distanceMatrix.get(this.nodeIndex[i], this.nodeIndex[j]);
     }
 
     /**
@@ -195,6 +287,7 @@ public class TOPTW {
      */
     public void setNodes(int nodes) {
         this.nodes = nodes;
+        this.buildNodeIndex();
     }
 
     /**
@@ -203,8 +296,7 @@ public class TOPTW {
      * @return double value.
      */
     public double getX(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.x[index];
+        return this.x[this.nodeIndex[index]];
     }
 
     /**
@@ -222,8 +314,7 @@ public class TOPTW {
      * @return double value.
      */
     public double getY(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.y[index];
+        return this.y[this.nodeIndex[index]];
     }
 
     /**
@@ -241,8 +332,7 @@ public class TOPTW {
      * @return double value.
      */
     public double getScore(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.score[index];
+        return this.score[this.nodeIndex[index]];
     }
 
     /**
@@ -252,13 +342,117 @@ public class TOPTW {
         return this.score;
     }
 
+    /**
+     * @brief Method to calculate the aggregates of the scores.
+     * @details The maximum is taken over all the nodes, the depot included, while the minimum,
+     * the total and the histogram only consider the POIs. The histogram splits [min, max] into
+     * SCORE_HISTOGRAM_BINS bins of the same width. The fuzzy membership value of every node,
+     * 1 - score/max, is also precomputed for the fuzzy selection of the RCL.
+     * @details The getters of the aggregates call it when the scores changed since the last
+     * calculation, so it only has to be called explicitly to pay the cost up front.
+     */
+    public synchronized void calculateScoreStatistics() {
+        double maxSc = -1.0, minSc = Double.MAX_VALUE, total = 0.0;
+        for(int i = 0; i < this.nodes + 1; i++) {
+            if(this.score[i] > maxSc) {
+                maxSc = this.score[i];
+            }
+            if(i > 0) {
+                minSc = Math.min(minSc, this.score[i]);
+                total += this.score[i];
+            }
+        }
+        if(this.nodes == 0) {
+            minSc = 0.0;
+        }
+        int[] histogram = new int[TOPTW.SCORE_HISTOGRAM_BINS];
+        double binWidth = (maxSc - minSc) / TOPTW.SCORE_HISTOGRAM_BINS;
+        for(int i = 1; i < this.nodes + 1; i++) {
+            int bin = binWidth > 0.0 ? (int) ((this.score[i] - minSc) / binWidth) : 0;
+            histogram[Math.min(Math.max(bin, 0), TOPTW.SCORE_HISTOGRAM_BINS - 1)]++;
+        }
+        double[] membership = new double[this.nodes + 1];
+        for(int i = 0; i < this.nodes + 1; i++) {
+            membership[i] = 1 - (this.score[i]/maxSc);
+        }
+        this.maxScore = maxSc;
+        this.minScore = minSc;
+        this.totalScore = total;
+        this.scoreHistogram = histogram;
+        this.scoreMembership = membership;
+        this.scoreStatisticsStale = false;
+    }
+
+    /**
+     * @brief Method to calculate the aggregates of the scores if they are not up to date.
+     */
+    private void updateScoreStatistics() {
+        if(this.scoreStatisticsStale) {
+            synchronized(this) {
+                if(this.scoreStatisticsStale) {
+                    this.calculateScoreStatistics();
+                }
+            }
+        }
+    }
+
+    /**
+     * @brief Method to get the maximum score of the nodes.
+     * @return The maximum score.
+     */
+    public double getMaxScore() {
+        this.updateScoreStatistics();
+        return this.maxScore;
+    }
+
+    /**
+     * @brief Method to get the minimum score of the POIs.
+     * @return The minimum score.
+     */
+    public double getMinScore() {
+        this.updateScoreStatistics();
+        return this.minScore;
+    }
+
+    /**
+     * @brief Method to get the sum of the scores of the POIs.
+     * @details It is an upper bound of the score of any solution.
+     * @return The total score.
+     */
+    public double getTotalScore() {
+        this.updateScoreStatistics();
+        return this.totalScore;
+    }
+
+    /**
+     * @brief Method to get the histogram of the scores of the POIs.
+     * @return The number of POIs in every bin.
+     */
+    public int[] getScoreHistogram() {
+        this.updateScoreStatistics();
+        return this.scoreHistogram;
+    }
+
+    /**
+     * @brief Method to get the fuzzy membership value of a node.
+     * @param index
+     * @return 1 - score/maxScore.
+     */
+    public double getScoreMembership(int index) {
+        this.updateScoreStatistics();
+        return this.scoreMembership[this.nodeIndex[index]];
+    }
+
     /**
      * @brief Method to set the score of a node.
+     * @details The aggregates of the scores are marked as stale and calculated again when
+     * they are next read, so setting every score costs O(1) per call.
      * @param index
      * @param score
      */
     public void setScore(int index, double score) {
         this.score[index] = score;
+        this.scoreStatisticsStale = true;
     }
 
     /**
@@ -267,17 +461,18 @@ public class TOPTW {
      * @return double value.
      */
     public double getReadyTime(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.readyTime[index];
+        return this.readyTime[this.nodeIndex[index]];
     }
 
     /**
      * @brief Method to set the ready time of a node.
+     * @details The compatibility matrix is discarded, since it depends on the time windows.
      * @param index
      * @param readyTime
      */
     public void setReadyTime(int index, double readyTime) {
         this.readyTime[index] = readyTime;
+        this.compatibilityMatrix = null;
     }
 
     /**
@@ -286,17 +481,18 @@ public class TOPTW {
      * @return double value.
      */
     public double getDueTime(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.dueTime[index];
+        return this.dueTime[this.nodeIndex[index]];
     }
 
     /**
      * @brief Method to set the due time of a node.
+     * @details The compatibility matrix is discarded, since it depends on the time windows.
      * @param index
      * @param dueTime
      */
     public void setDueTime(int index, double dueTime) {
         this.dueTime[index] = dueTime;
+        this.compatibilityMatrix = null;
     }
 
     /**
@@ -305,17 +501,18 @@ public class TOPTW {
      * @return double value.
      */
     public double getServiceTime(int index) {
-        if(this.isDepot(index)) { index=0; }
-        return this.serviceTime[index];
+        return this.serviceTime[this.nodeIndex[index]];
     }
 
     /**
      * @brief Method to set the service time of a node.
+     * @details The compatibility matrix is discarded, since it depends on the time windows.
      * @param index
      * @param serviceTime
      */
     public void setServiceTime(int index, double serviceTime) {
         this.serviceTime[index] = serviceTime;
+        this.compatibilityMatrix = null;
     }
 
     /**
@@ -365,6 +562,7 @@ public class TOPTW {
      */
     public int addNode() {
         this.nodes++;
+        this.buildNodeIndex();
         return this.nodes;
     }
 
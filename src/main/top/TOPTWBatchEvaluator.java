@@ -0,0 +1,210 @@
+package top;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @brief Class to evaluate many solutions of a TOPTW problem at once.
+ * @details The solutions are packed one after another in a single array of successors,
+ * each one with the layout of TOPTWSolution: getStride() entries, the depot of route 0 at
+ * node 0 and the depot of route k at node POIs+k. A route whose depot has no successor
+ * (NO_INITIALIZED) is not created.
+ * @details The evaluation follows the rules of TOPTWEvaluator. The times and scores of the
+ * problem are copied once into flat arrays indexed without the depot remapping. Distances are
+ * read from the distance matrix of the problem, so the evaluator keeps the memory limits of its
+ * storage mode (TRIANGULAR, FLOAT or LAZY) instead of expanding it to (POIs+1)^2 entries. The
+ * matrix is shared, so the evaluator must be created after the distances are calculated and
+ * again if the storage mode of the problem changes.
+ * @details The parallel evaluation splits the batch in ranges with fork/join; every
+ * solution is independent, so the results are the same as the sequential ones.
+ */
+public class TOPTWBatchEvaluator {
+    public static final int DEFAULT_THRESHOLD = 64;
+
+    private final int pois;
+    private final int vehicles;
+    private final int stride;
+    private final int size;
+    private final int[] index;
+    private final TOPTWDistanceMatrix distances;
+    private final double[] readyTimes;
+    private final double[] dueTimes;
+    private final double[] serviceTimes;
+    private final double[] scores;
+    private final double maxTimePerRoute;
+
+    /**
+     * @brief Constructor of the class.
+     * @param problem
+     */
+    public TOPTWBatchEvaluator(TOPTW problem) {
+        this.pois = problem.getPOIs();
+        this.vehicles = problem.getVehicles();
+        this.stride = this.pois + this.vehicles;
+        this.size = this.pois + 1;
+        this.index = new int[this.stride];
+        for(int i = 0; i < this.stride; i++) {
+            this.index[i] = i <= this.pois ? i : 0;
+        }
+        this.distances = problem.getDistanceMatrix();
+        this.readyTimes = new double[this.size];
+        this.dueTimes = new double[this.size];
+        this.serviceTimes = new double[this.size];
+        this.scores = new double[this.size];
+        for(int i = 0; i < this.size; i++) {
+            this.readyTimes[i] = problem.getReadyTime(i);
+            this.dueTimes[i] = problem.getDueTime(i);
+            this.serviceTimes[i] = problem.getServiceTime(i);
+            this.scores[i] = problem.getScore(i);
+        }
+        this.maxTimePerRoute = problem.getMaxTimePerRoute();
+    }
+
+    /**
+     * @brief Method to get the number of entries of every solution in the packed array.
+     * @return The number of POIs plus the number of vehicles.
+     */
+    public int getStride() {
+        return this.stride;
+    }
+
+    /**
+     * @brief Method to copy the successors of a solution into a packed array.
+     * @param solution Solution of the problem of this evaluator.
+     * @param packed Packed array of successors.
+     * @param position Position of the solution in the batch.
+     */
+    public void pack(TOPTWSolution solution, int[] packed, int position) {
+        int base = position * this.stride;
+        for(int node = 0; node < this.stride; node++) {
+            packed[base + node] = solution.getSuccessor(node);
+        }
+    }
+
+    /**
+     * @brief Method to evaluate a batch of solutions in the calling thread.
+     * @param packed Packed array of successors.
+     * @param count Number of solutions of the batch.
+     * @param results Buffer where the results are stored.
+     */
+    public void evaluate(int[] packed, int count, TOPTWBatchResults results) {
+        this.checkBatch(packed, count, results);
+        this.evaluateRange(packed, 0, count, results);
+    }
+
+    /**
+     * @brief Method to evaluate a batch of solutions in the common fork/join pool.
+     * @param packed Packed array of successors.
+     * @param count Number of solutions of the batch.
+     * @param results Buffer where the results are stored.
+     */
+    public void evaluateParallel(int[] packed, int count, TOPTWBatchResults results) {
+        this.evaluateParallel(packed, count, results, ForkJoinPool.commonPool(), TOPTWBatchEvaluator.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @brief Method to evaluate a batch of solutions in a fork/join pool.
+     * @param packed Packed array of successors.
+     * @param count Number of solutions of the batch.
+     * @param results Buffer where the results are stored.
+     * @param pool Pool that runs the evaluation.
+     * @param threshold Number of solutions below which a range is evaluated sequentially.
+     */
+    public void evaluateParallel(int[] packed, int count, TOPTWBatchResults results, ForkJoinPool pool, int threshold) {
+        this.checkBatch(packed, count, results);
+        pool.invoke(new RangeEvaluation(packed, 0, count, results, Math.max(threshold, 1)));
+    }
+
+    /**
+     * @brief Method to check that a batch fits in the packed array and in the results.
+     * @param packed Packed array of successors.
+     * @param count Number of solutions of the batch.
+     * @param results Buffer where the results are stored.
+     */
+    private void checkBatch(int[] packed, int count, TOPTWBatchResults results) {
+        if(count > results.getCapacity() || (long) count * this.stride > packed.length) {
+            throw new IllegalArgumentException("The batch does not fit in the arrays");
+        }
+    }
+
+    /**
+     * @brief Method to evaluate a range of solutions of a batch.
+     * @param packed Packed array of successors.
+     * @param from First solution of the range.
+     * @param to Solution after the last one of the range.
+     * @param results Buffer where the results are stored.
+     */
+    private void evaluateRange(int[] packed, int from, int to, TOPTWBatchResults results) {
+        for(int position = from; position < to; position++) {
+            int base = position * this.stride;
+            double score = 0.0, timeCost = 0.0;
+            boolean feasible = true;
+            for(int k = 0; k < this.vehicles; k++) {
+                int depot = k == 0 ? 0 : this.pois + k;
+                if(packed[base + depot] == TOPTWSolution.NO_INITIALIZED) {
+                    continue;
+                }
+                double time = 0.0;
+                int pre = depot, suc, steps = 0;
+                int preIndex = 0;
+                do {
+                    suc = packed[base + pre];
+                    // una ruta sin retorno al depósito no es válida
+                    if(suc < 0 || suc >= this.stride || ++steps > this.stride) {
+                        feasible = false;
+                        break;
+                    }
+                    int sucIndex = this.index[suc];
+                    time += this.distances.get(preIndex, sucIndex);
+                    if(time < this.dueTimes[sucIndex]) {
+                        if(time < this.readyTimes[sucIndex]) {
+                            time = this.readyTimes[sucIndex];
+                        }
+                        time += this.serviceTimes[sucIndex];
+                        if(time > this.maxTimePerRoute) {
+                            feasible = false;
+                        }
+                        score += this.scores[sucIndex];
+                    } else {
+                        feasible = false;
+                    }
+                    pre = suc;
+                    preIndex = sucIndex;
+                } while(suc != depot);
+                timeCost += time;
+            }
+            results.set(position, score, timeCost, feasible);
+        }
+    }
+
+    /**
+     * @brief Fork/join task that evaluates a range of solutions.
+     */
+    private final class RangeEvaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] packed;
+        private final int from;
+        private final int to;
+        private final TOPTWBatchResults results;
+        private final int threshold;
+
+        RangeEvaluation(int[] packed, int from, int to, TOPTWBatchResults results, int threshold) {
+            this.packed = packed;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.to - this.from <= this.threshold) {
+                evaluateRange(this.packed, this.from, this.to, this.results);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new RangeEvaluation(this.packed, this.from, middle, this.results, this.threshold),
+                    new RangeEvaluation(this.packed, middle, this.to, this.results, this.threshold));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package top;
+
+/**
+ * @brief Buffer with the results of a batch evaluation.
+ * @details The results are stored in primitive arrays indexed by the position of the
+ * solution in the batch, so the buffer can be reused between batches.
+ */
+public class TOPTWBatchResults {
+    private final double[] scores;
+    private final double[] timeCosts;
+    private final boolean[] feasible;
+
+    /**
+     * @brief Constructor of the class.
+     * @param capacity Maximum number of solutions of a batch.
+     */
+    public TOPTWBatchResults(int capacity) {
+        this.scores = new double[capacity];
+        this.timeCosts = new double[capacity];
+        this.feasible = new boolean[capacity];
+    }
+
+    /**
+     * @brief Method to store the result of a solution.
+     * @param position Position of the solution in the batch.
+     * @param score
+     * @param timeCost
+     * @param feasible
+     */
+    void set(int position, double score, double timeCost, boolean feasible) {
+        this.scores[position] = score;
+        this.timeCosts[position] = timeCost;
+        this.feasible[position] = feasible;
+    }
+
+    /**
+     * @brief Method to get the maximum number of solutions of a batch.
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.scores.length;
+    }
+
+    /**
+     * @brief Method to get the score of a solution.
+     * @param position Position of the solution in the batch.
+     * @return The score.
+     */
+    public double getScore(int position) {
+        return this.scores[position];
+    }
+
+    /**
+     * @brief Method to get the time cost of a solution.
+     * @param position Position of the solution in the batch.
+     * @return The sum of the durations of its routes.
+     */
+    public double getTimeCost(int position) {
+        return this.timeCosts[position];
+    }
+
+    /**
+     * @brief Method to know if a solution is feasible.
+     * @param position Position of the solution in the batch.
+     * @return True if it is feasible, false otherwise.
+     */
+    public boolean isFeasible(int position) {
+        return this.feasible[position];
+    }
+}
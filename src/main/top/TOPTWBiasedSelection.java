@@ -0,0 +1,92 @@
+package top;
+
+/**
+ * @brief Strategy that selects a candidate of the RCL with probabilities given by a bias function of its rank.
+ * @details The candidates of the RCL are ranked by cost from 1, and the probability of the
+ * candidate of rank r is proportional to bias(r), so the cheaper candidates are preferred
+ * without discarding the others.
+ */
+public class TOPTWBiasedSelection implements TOPTWSelectionStrategy {
+    /**
+     * @brief Bias functions of the rank.
+     */
+    public enum Bias {
+        /** bias(r) = 1 */
+        RANDOM,
+        /** bias(r) = 1/r */
+        LINEAR,
+        /** bias(r) = 1/log(r+1) */
+        LOG,
+        /** bias(r) = 1/r^2 */
+        POLYNOMIAL,
+        /** bias(r) = e^-r */
+        EXPONENTIAL
+    }
+
+    private final Bias bias;
+
+    /**
+     * @brief Constructor of the class with the linear bias.
+     */
+    public TOPTWBiasedSelection() {
+        this(Bias.LINEAR);
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param bias Bias function of the rank.
+     */
+    public TOPTWBiasedSelection(Bias bias) {
+        this.bias = bias;
+    }
+
+    /**
+     * @brief Method to select the candidate to insert.
+     * @details The alpha is not used.
+     * @param problem
+     * @param candidates
+     * @param maxSizeRCL
+     * @param alpha
+     * @param random
+     * @return The index of the selected candidate.
+     */
+    @Override
+    public int select(TOPTW problem, TOPTWCandidateList candidates, int maxSizeRCL, double alpha, TOPTWRandomSource random) {
+        int rclSize = candidates.buildRCL(maxSizeRCL);
+        double total = 0.0;
+        for(int rank = 1; rank <= rclSize; rank++) {
+            total += this.getBias(rank);
+        }
+        double r = random.nextDouble() * total;
+        for(int rank = 1; rank < rclSize; rank++) {
+            r -= this.getBias(rank);
+            if(r < 0.0) {
+                return candidates.getRCL(rank-1);
+            }
+        }
+        return candidates.getRCL(rclSize-1);
+    }
+
+    /**
+     * @brief Method to compute the bias of a rank.
+     * @param rank Rank from 1.
+     * @return The bias.
+     */
+    private double getBias(int rank) {
+        switch(this.bias) {
+            case LINEAR: return 1.0 / rank;
+            case LOG: return 1.0 / Math.log(rank + 1);
+            case POLYNOMIAL: return 1.0 / ((double) rank * rank);
+            case EXPONENTIAL: return Math.exp(-rank);
+            default: return 1.0;
+        }
+    }
+
+    /**
+     * @brief Method to get the bias function.
+     * @return The bias function.
+     */
+    public Bias getBias() {
+        return this.bias;
+    }
+}
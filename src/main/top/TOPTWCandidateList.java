@@ -0,0 +1,156 @@
+package top;
+
+/**
+ * @brief Class to store the candidates of the greedy construction in preallocated arrays.
+ * @details Every candidate is the best insertion of a customer: route, predecessor,
+ * time cost and score. The restricted candidate list (RCL) is kept as a range of
+ * candidate indices sorted by cost, so building and selecting from it allocates nothing.
+ */
+public class TOPTWCandidateList {
+    private int[] customers;
+    private int[] routes;
+    private int[] predecessors;
+    private double[] costs;
+    private double[] scores;
+    private int size;
+    private int[] rcl;
+    private int rclSize;
+
+    /**
+     * @brief Constructor of the class.
+     * @param capacity Maximum number of candidates.
+     */
+    public TOPTWCandidateList(int capacity) {
+        this.customers = new int[capacity];
+        this.routes = new int[capacity];
+        this.predecessors = new int[capacity];
+        this.costs = new double[capacity];
+        this.scores = new double[capacity];
+        this.rcl = new int[capacity];
+        this.size = 0;
+        this.rclSize = 0;
+    }
+
+    /**
+     * @brief Method to remove all the candidates.
+     */
+    public void clear() {
+        this.size = 0;
+        this.rclSize = 0;
+    }
+
+    /**
+     * @brief Method to add a candidate.
+     * @param customer
+     * @param route
+     * @param predecessor
+     * @param cost
+     * @param score
+     */
+    public void add(int customer, int route, int predecessor, double cost, double score) {
+        this.customers[this.size] = customer;
+        this.routes[this.size] = route;
+        this.predecessors[this.size] = predecessor;
+        this.costs[this.size] = cost;
+        this.scores[this.size] = score;
+        this.size++;
+    }
+
+    /**
+     * @brief Method to build the RCL with the candidates of lowest cost.
+     * @details Partial insertion selection: only the best maxSizeRCL candidates are kept
+     * sorted. Candidates with the same cost keep their insertion order, as a stable sort would.
+     * @param maxSizeRCL Maximum size of the RCL.
+     * @return The size of the RCL.
+     */
+    public int buildRCL(int maxSizeRCL) {
+        int limit = Math.min(maxSizeRCL, this.size);
+        this.rclSize = 0;
+        for(int i = 0; i < this.size && limit > 0; i++) {
+            int pos;
+            if(this.rclSize < limit) {
+                pos = this.rclSize++;
+            } else if(this.costs[i] < this.costs[this.rcl[limit-1]]) {
+                pos = limit-1;
+            } else {
+                continue;
+            }
+            while(pos > 0 && this.costs[this.rcl[pos-1]] > this.costs[i]) {
+                this.rcl[pos] = this.rcl[pos-1];
+                pos--;
+            }
+            this.rcl[pos] = i;
+        }
+        return this.rclSize;
+    }
+
+    /**
+     * @brief Method to get the number of candidates.
+     * @return The number of candidates.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @brief Method to get the size of the RCL.
+     * @return The size of the RCL.
+     */
+    public int getRCLSize() {
+        return this.rclSize;
+    }
+
+    /**
+     * @brief Method to get the candidate at a position of the RCL.
+     * @param position
+     * @return The index of the candidate.
+     */
+    public int getRCL(int position) {
+        return this.rcl[position];
+    }
+
+    /**
+     * @brief Method to get the customer of a candidate.
+     * @param candidate
+     * @return The customer.
+     */
+    public int getCustomer(int candidate) {
+        return this.customers[candidate];
+    }
+
+    /**
+     * @brief Method to get the route of a candidate.
+     * @param candidate
+     * @return The route.
+     */
+    public int getRoute(int candidate) {
+        return this.routes[candidate];
+    }
+
+    /**
+     * @brief Method to get the predecessor of a candidate.
+     * @param candidate
+     * @return The predecessor.
+     */
+    public int getPredecessor(int candidate) {
+        return this.predecessors[candidate];
+    }
+
+    /**
+     * @brief Method to get the time cost of a candidate.
+     * @param candidate
+     * @return The time cost.
+     */
+    public double getCost(int candidate) {
+        return this.costs[candidate];
+    }
+
+    /**
+     * @brief Method to get the score of a candidate.
+     * @param candidate
+     * @return The score.
+     */
+    public double getScore(int candidate) {
+        return this.scores[candidate];
+    }
+}
@@ -0,0 +1,87 @@
+package top;
+
+import java.util.Arrays;
+
+/**
+ * @brief Class to record the convergence of a GRASP run.
+ * @details Every point stores the elapsed time, the iteration and the best score when the
+ * best solution improves. The points are kept in primitive arrays that grow by doubling,
+ * so recording a point does not allocate in the common case.
+ */
+public class TOPTWConvergenceTrace {
+    private static final int INITIAL_CAPACITY = 64;
+    private long[] times;
+    private int[] iterations;
+    private double[] scores;
+    private int size;
+
+    /**
+     * @brief Constructor of the class.
+     */
+    public TOPTWConvergenceTrace() {
+        this.times = new long[TOPTWConvergenceTrace.INITIAL_CAPACITY];
+        this.iterations = new int[TOPTWConvergenceTrace.INITIAL_CAPACITY];
+        this.scores = new double[TOPTWConvergenceTrace.INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * @brief Method to add a point.
+     * @param time Elapsed time in nanoseconds.
+     * @param iteration
+     * @param score Best score at that time.
+     */
+    public void add(long time, int iteration, double score) {
+        if(this.size == this.times.length) {
+            this.times = Arrays.copyOf(this.times, 2*this.size);
+            this.iterations = Arrays.copyOf(this.iterations, 2*this.size);
+            this.scores = Arrays.copyOf(this.scores, 2*this.size);
+        }
+        this.times[this.size] = time;
+        this.iterations[this.size] = iteration;
+        this.scores[this.size] = score;
+        this.size++;
+    }
+
+    /**
+     * @brief Method to remove all the points.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * @brief Method to get the number of points.
+     * @return The number of points.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @brief Method to get the elapsed time of a point.
+     * @param point
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getTime(int point) {
+        return this.times[point];
+    }
+
+    /**
+     * @brief Method to get the iteration of a point.
+     * @param point
+     * @return The iteration.
+     */
+    public int getIteration(int point) {
+        return this.iterations[point];
+    }
+
+    /**
+     * @brief Method to get the best score of a point.
+     * @param point
+     * @return The best score.
+     */
+    public double getScore(int point) {
+        return this.scores[point];
+    }
+}
@@ -0,0 +1,71 @@
+package top;
+
+/**
+ * @brief Interface of the storage of the distances between the nodes of a TOPTW problem.
+ * @details Nodes are indexed from 0 to size()-1 (depot copies must be resolved by the caller)
+ * and distances are symmetric.
+ */
+public interface TOPTWDistanceMatrix {
+
+    /**
+     * @brief Number of nodes above which problems compute their distances on demand by default.
+     */
+    int LAZY_THRESHOLD = 20000;
+
+    /**
+     * @brief Storage modes of the distance matrix.
+     * @details FLAT and TRIANGULAR store the exact double values. FLOAT halves the memory and
+     * rounds every distance to the nearest float, a relative error of at most
+     * TOPTWFloatDistanceMatrix.RELATIVE_TOLERANCE. LAZY stores no matrix and computes the exact
+     * distances from the coordinates behind a bounded cache.
+     */
+    enum Storage {
+        FLAT, TRIANGULAR, FLOAT, LAZY;
+
+        /**
+         * @brief Method to get the default storage mode for a number of nodes.
+         * @param size Number of nodes.
+         * @return LAZY above LAZY_THRESHOLD nodes, FLAT otherwise.
+         */
+        public static Storage forSize(int size) {
+            return size > LAZY_THRESHOLD ? LAZY : FLAT;
+        }
+    }
+
+    /**
+     * @brief Method to get the distance between two nodes.
+     * @param i
+     * @param j
+     * @return The distance.
+     */
+    double get(int i, int j);
+
+    /**
+     * @brief Method to set the distance between two nodes in both directions.
+     * @param i
+     * @param j
+     * @param distance
+     */
+    void set(int i, int j, double distance);
+
+    /**
+     * @brief Method to get the number of nodes.
+     * @return The number of nodes.
+     */
+    int size();
+
+    /**
+     * @brief Method to create an empty distance matrix.
+     * @param storage Storage mode, LAZY matrices are built from the coordinates instead.
+     * @param size Number of nodes.
+     * @return The distance matrix with every distance set to 0.
+     */
+    static TOPTWDistanceMatrix create(Storage storage, int size) {
+        switch (storage) {
+            case TRIANGULAR: return new TOPTWTriangularDistanceMatrix(size);
+            case FLOAT:      return new TOPTWFloatDistanceMatrix(size);
+            case LAZY:       throw new IllegalArgumentException("LAZY distance matrices are built from the coordinates");
+            default:         return new TOPTWFlatDistanceMatrix(size);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package top;
+
+/**
+ * @brief Pool of diverse high-scoring solutions for path relinking.
+ * @details The distance between two solutions is the number of POIs visited by only one
+ * of them. While the pool is not full a solution enters if it is far enough from every
+ * member. When it is full a solution must be better than the worst member, which it
+ * replaces, and also far enough from every member unless it is better than the best one.
+ * @details The members are snapshots: the buffers are allocated the first time a slot is
+ * filled and then overwritten with copyFrom, so a long run does not allocate solutions.
+ */
+public class TOPTWElitePool {
+    public static final int DEFAULT_CAPACITY = 10;
+    public static final int DEFAULT_MIN_DISTANCE = 1;
+
+    private final TOPTWSolution[] members;
+    private final double[] fitnesses;
+    private final int minDistance;
+    private int size;
+
+    /**
+     * @brief Constructor of the class with the default minimum distance.
+     * @param capacity Maximum number of solutions.
+     */
+    public TOPTWElitePool(int capacity) {
+        this(capacity, TOPTWElitePool.DEFAULT_MIN_DISTANCE);
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param capacity Maximum number of solutions.
+     * @param minDistance Minimum distance of a new solution to every member.
+     */
+    public TOPTWElitePool(int capacity, int minDistance) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("The capacity of the elite pool can not be negative");
+        }
+        this.members = new TOPTWSolution[capacity];
+        this.fitnesses = new double[capacity];
+        this.minDistance = minDistance;
+        this.size = 0;
+    }
+
+    /**
+     * @brief Method to try to add a solution to the pool.
+     * @param solution Solution to add, it is copied.
+     * @param fitness Fitness of the solution.
+     * @return True if the solution was added, false otherwise.
+     */
+    public boolean add(TOPTWSolution solution, double fitness) {
+        if(this.members.length == 0) {
+            return false;
+        }
+        int distance = this.getMinDistance(solution);
+        int slot;
+        if(this.size < this.members.length) {
+            if(distance < this.minDistance) {
+                return false;
+            }
+            slot = this.size++;
+        } else {
+            slot = this.getWorst();
+            if(fitness <= this.fitnesses[slot]) {
+                return false;
+            }
+            if(distance < this.minDistance && fitness <= this.getBestFitness()) {
+                return false;
+            }
+        }
+        if(this.members[slot] == null) {
+            this.members[slot] = new TOPTWSolution(solution);
+        } else {
+            this.members[slot].copyFrom(solution);
+        }
+        this.fitnesses[slot] = fitness;
+        return true;
+    }
+
+    /**
+     * @brief Method to get the distance from a solution to the closest member.
+     * @param solution
+     * @return The distance, Integer.MAX_VALUE if the pool is empty.
+     */
+    public int getMinDistance(TOPTWSolution solution) {
+        int distance = Integer.MAX_VALUE;
+        for(int i = 0; i < this.size; i++) {
+            distance = Math.min(distance, this.members[i].getVisitedDistance(solution));
+        }
+        return distance;
+    }
+
+    /**
+     * @brief Method to get the member with the lowest fitness.
+     * @return The position of the member.
+     */
+    private int getWorst() {
+        int worst = 0;
+        for(int i = 1; i < this.size; i++) {
+            if(this.fitnesses[i] < this.fitnesses[worst]) {
+                worst = i;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * @brief Method to get the highest fitness of the pool.
+     * @return The fitness, -1 if the pool is empty.
+     */
+    public double getBestFitness() {
+        double best = -1;
+        for(int i = 0; i < this.size; i++) {
+            best = Math.max(best, this.fitnesses[i]);
+        }
+        return best;
+    }
+
+    /**
+     * @brief Method to remove all the solutions, keeping the buffers.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * @brief Method to get the number of solutions.
+     * @return The number of solutions.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @brief Method to get the maximum number of solutions.
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.members.length;
+    }
+
+    /**
+     * @brief Method to get a member.
+     * @param position
+     * @return The solution, it must not be modified.
+     */
+    public TOPTWSolution get(int position) {
+        return this.members[position];
+    }
+
+    /**
+     * @brief Method to get the fitness of a member.
+     * @param position
+     * @return The fitness.
+     */
+    public double getFitness(int position) {
+        return this.fitnesses[position];
+    }
+}
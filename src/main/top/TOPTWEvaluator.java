@@ -2,40 +2,206 @@ package top;
 
 /**
  * @brief Class to evaluate the solution of the TOPTW problem.
+ * @details The full evaluation walks every route once and computes the score, the time
+ * cost, the duration of every route and the feasibility, with the same rules as
+ * getInfoSolution: a POI is served if the arrival is before its due time, the route waits
+ * until the ready time, and a route is infeasible if it leaves a node after the maximum
+ * time per route. The score only counts the POIs served.
+ * @details The delta evaluation compares a proposed sequence of POIs for one route with
+ * the current one, without modifying the solution nor walking the other routes.
+ * @details The results are kept in fields and the buffer of route durations is only
+ * allocated when the problem changes, so evaluations do not allocate.
  */
 public class TOPTWEvaluator {
     public static double NO_EVALUATED = -1.0;
 
+    private TOPTW problem;
+    private double[] routeDurations;
+    private int routes;
+    private double score;
+    private double timeCost;
+    private boolean feasible;
+    private double deltaScore;
+    private double deltaTime;
+
+    // acumuladores del recorrido de una ruta
+    private double routeTime;
+    private double routeScore;
+    private boolean routeFeasible;
+
+    /**
+     * @brief Constructor of the class.
+     */
+    public TOPTWEvaluator() {
+        this.problem = null;
+        this.routeDurations = new double[0];
+        this.routes = 0;
+        this.score = TOPTWEvaluator.NO_EVALUATED;
+        this.timeCost = TOPTWEvaluator.NO_EVALUATED;
+        this.feasible = false;
+        this.deltaScore = 0.0;
+        this.deltaTime = 0.0;
+    }
+
     /**
      * @brief Method to evaluate the solution of the TOPTW problem.
      * @param solution
+     * @return The score of the solution.
+     */
+    public double evaluate(TOPTWSolution solution) {
+        this.setProblem(solution.getProblem());
+        this.routes = solution.getCreatedRoutes();
+        this.score = 0.0;
+        this.timeCost = 0.0;
+        this.feasible = true;
+        for(int k = 0; k < this.routes; k++) {
+            this.walkRoute(solution, k);
+            this.routeDurations[k] = this.routeTime;
+            this.score += this.routeScore;
+            this.timeCost += this.routeTime;
+            this.feasible &= this.routeFeasible;
+        }
+        return this.score;
+    }
+
+    /**
+     * @brief Method to evaluate the change of a route to a new sequence of POIs.
+     * @details The solution is not modified. The changes of score and duration of the route
+     * are available with getDeltaScore() and getDeltaTime().
+     * @param solution
+     * @param route Index of the route.
+     * @param sequence POIs of the new route in visiting order, without the depot.
+     * @param length Number of POIs of the sequence.
+     * @return True if the new route is feasible, false otherwise.
+     */
+    public boolean evaluateRouteChange(TOPTWSolution solution, int route, int[] sequence, int length) {
+        this.setProblem(solution.getProblem());
+        this.walkRoute(solution, route);
+        double oldTime = this.routeTime, oldScore = this.routeScore;
+        int depot = solution.getIndexRoute(route);
+        this.startRoute();
+        int pre = depot;
+        for(int i = 0; i < length; i++) {
+            this.step(pre, sequence[i]);
+            pre = sequence[i];
+        }
+        this.step(pre, depot);
+        this.deltaScore = this.routeScore - oldScore;
+        this.deltaTime = this.routeTime - oldTime;
+        return this.routeFeasible;
+    }
+
+    /**
+     * @brief Method to walk a route of a solution.
+     * @param solution
+     * @param route Index of the route.
+     */
+    private void walkRoute(TOPTWSolution solution, int route) {
+        int depot = solution.getIndexRoute(route);
+        int pre = depot, suc;
+        this.startRoute();
+        do {
+            suc = solution.getSuccessor(pre);
+            this.step(pre, suc);
+            pre = suc;
+        } while(suc != depot);
+    }
+
+    /**
+     * @brief Method to reset the accumulators of a route.
      */
-    public void evaluate(TOPTWSolution solution) {
-        /*CumulativeCVRP problem = solution.getProblem();
-        double objectiveFunctionValue = 0.0;
-        for (int i = 0; i < solution.getIndexDepot().size(); i++) {
-            double cumulative = 0;
-            int depot = solution.getAnIndexDepot(i);
-            int actual = depot;
-            actual = solution.getSuccessor(actual);
-            cumulative += problem.getDistanceMatrix(0, actual);
-            objectiveFunctionValue += problem.getDistanceMatrix(0, actual);
-            System.out.println("Desde " + 0 + " a " + actual + " = " + cumulative);
-            while (actual != depot) {
-                int ant = actual;
-                actual = solution.getSuccessor(actual);
-                if (actual != depot) {
-                    cumulative += problem.getDistanceMatrix(ant, actual);
-                    objectiveFunctionValue += cumulative;
-                    System.out.println("Desde " + ant + " a " + actual + " = " + cumulative);
-                } else {
-                    cumulative += problem.getDistanceMatrix(ant, 0);
-                    objectiveFunctionValue += cumulative;
-                    System.out.println("Desde " + ant + " a " + 0 + " = " + cumulative);
-                }
+    private void startRoute() {
+        this.routeTime = 0.0;
+        this.routeScore = 0.0;
+        this.routeFeasible = true;
+    }
+
+    /**
+     * @brief Method to travel from a node to the next one of the route.
+     * @param pre
+     * @param suc
+     */
+    private void step(int pre, int suc) {
+        this.routeTime += this.problem.getDistance(pre, suc);
+        if(this.routeTime < this.problem.getDueTime(suc)) {
+            if(this.routeTime < this.problem.getReadyTime(suc)) {
+                this.routeTime = this.problem.getReadyTime(suc);
+            }
+            this.routeTime += this.problem.getServiceTime(suc);
+            if(this.routeTime > this.problem.getMaxTimePerRoute()) {
+                this.routeFeasible = false;
             }
-            System.out.println("");
+            this.routeScore += this.problem.getScore(suc);
+        } else {
+            this.routeFeasible = false;
+        }
+    }
+
+    /**
+     * @brief Method to set the problem of the solutions evaluated.
+     * @param problem
+     */
+    private void setProblem(TOPTW problem) {
+        if(this.problem != problem) {
+            this.problem = problem;
+            this.routeDurations = new double[problem.getVehicles()];
         }
-        solution.setObjectiveFunctionValue(objectiveFunctionValue);*/
+    }
+
+    /**
+     * @brief Method to get the score of the last solution evaluated.
+     * @return The score, NO_EVALUATED if no solution was evaluated.
+     */
+    public double getScore() {
+        return this.score;
+    }
+
+    /**
+     * @brief Method to get the time cost of the last solution evaluated.
+     * @return The sum of the durations of the routes, NO_EVALUATED if no solution was evaluated.
+     */
+    public double getTimeCost() {
+        return this.timeCost;
+    }
+
+    /**
+     * @brief Method to know if the last solution evaluated is feasible.
+     * @return True if it is feasible, false otherwise.
+     */
+    public boolean isFeasible() {
+        return this.feasible;
+    }
+
+    /**
+     * @brief Method to get the number of routes of the last solution evaluated.
+     * @return The number of routes.
+     */
+    public int getRoutes() {
+        return this.routes;
+    }
+
+    /**
+     * @brief Method to get the duration of a route of the last solution evaluated.
+     * @param route Index of the route.
+     * @return The time at which the route returns to the depot.
+     */
+    public double getRouteDuration(int route) {
+        return this.routeDurations[route];
+    }
+
+    /**
+     * @brief Method to get the change of score of the last route change evaluated.
+     * @return The new score of the route minus the current one.
+     */
+    public double getDeltaScore() {
+        return this.deltaScore;
+    }
+
+    /**
+     * @brief Method to get the change of duration of the last route change evaluated.
+     * @return The new duration of the route minus the current one.
+     */
+    public double getDeltaTime() {
+        return this.deltaTime;
     }
 }
@@ -0,0 +1,50 @@
+package top;
+
+/**
+ * @brief Distance matrix stored as a single row-major array of doubles.
+ */
+public class TOPTWFlatDistanceMatrix implements TOPTWDistanceMatrix {
+    private final int size;
+    private final double[] distances;
+
+    /**
+     * @brief Constructor of the class.
+     * @param size Number of nodes.
+     */
+    public TOPTWFlatDistanceMatrix(int size) {
+        this.size = size;
+        this.distances = new double[Math.toIntExact((long) size * size)];
+    }
+
+    /**
+     * @brief Method to get the distance between two nodes.
+     * @param i
+     * @param j
+     * @return The distance.
+     */
+    @Override
+    public double get(int i, int j) {
+        return this.distances[i * this.size + j];
+    }
+
+    /**
+     * @brief Method to set the distance between two nodes in both directions.
+     * @param i
+     * @param j
+     * @param distance
+     */
+    @Override
+    public void set(int i, int j, double distance) {
+        this.distances[i * this.size + j] = distance;
+        this.distances[j * this.size + i] = distance;
+    }
+
+    /**
+     * @brief Method to get the number of nodes.
+     * @return The number of nodes.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+}
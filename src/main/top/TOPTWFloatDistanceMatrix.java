@@ -0,0 +1,53 @@
+package top;
+
+/**
+ * @brief Distance matrix stored as a single row-major array of floats.
+ * @details Every distance is rounded to the nearest float, so the value returned differs
+ * from the exact one by at most RELATIVE_TOLERANCE times the distance.
+ */
+public class TOPTWFloatDistanceMatrix implements TOPTWDistanceMatrix {
+    public static final double RELATIVE_TOLERANCE = 0x1.0p-24;
+    private final int size;
+    private final float[] distances;
+
+    /**
+     * @brief Constructor of the class.
+     * @param size Number of nodes.
+     */
+    public TOPTWFloatDistanceMatrix(int size) {
+        this.size = size;
+        this.distances = new float[Math.toIntExact((long) size * size)];
+    }
+
+    /**
+     * @brief Method to get the distance between two nodes.
+     * @param i
+     * @param j
+     * @return The distance.
+     */
+    @Override
+    public double get(int i, int j) {
+        return this.distances[i * this.size + j];
+    }
+
+    /**
+     * @brief Method to set the distance between two nodes in both directions.
+     * @param i
+     * @param j
+     * @param distance
+     */
+    @Override
+    public void set(int i, int j, double distance) {
+        this.distances[i * this.size + j] = (float) distance;
+        this.distances[j * this.size + i] = (float) distance;
+    }
+
+    /**
+     * @brief Method to get the number of nodes.
+     * @return The number of nodes.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+}
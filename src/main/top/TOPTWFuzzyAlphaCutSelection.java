@@ -0,0 +1,41 @@
+package top;
+
+/**
+ * @brief Strategy that selects a random candidate of the alpha cut of the RCL.
+ * @details The alpha cut holds the candidates of the RCL whose fuzzy membership value
+ * 1 - score/maxScore, precomputed by TOPTW, is not greater than alpha. If it is empty, any candidate of the
+ * RCL can be selected. This is the default strategy of GRASP.
+ */
+public class TOPTWFuzzyAlphaCutSelection implements TOPTWSelectionStrategy {
+    /**
+     * @brief Method to select the candidate to insert.
+     * @details A first pass counts the elements of the alpha cut and a second one
+     * finds the element drawn among them, so no intermediate list is built.
+     * @param problem
+     * @param candidates
+     * @param maxSizeRCL
+     * @param alpha Maximum membership value of the alpha cut.
+     * @param random
+     * @return The index of the selected candidate.
+     */
+    @Override
+    public int select(TOPTW problem, TOPTWCandidateList candidates, int maxSizeRCL, double alpha, TOPTWRandomSource random) {
+        int rclSize = candidates.buildRCL(maxSizeRCL);
+        int alphaCutSize = 0;
+        for(int j = 0; j < rclSize; j++) {
+            if(problem.getScoreMembership(candidates.getCustomer(candidates.getRCL(j))) <= alpha) {
+                alphaCutSize++;
+            }
+        }
+        if(alphaCutSize == 0) {
+            return candidates.getRCL(random.nextInt(rclSize));
+        }
+        int selected = random.nextInt(alphaCutSize);
+        for(int j = 0; j < rclSize; j++) {
+            if(problem.getScoreMembership(candidates.getCustomer(candidates.getRCL(j))) <= alpha && selected-- == 0) {
+                return candidates.getRCL(j);
+            }
+        }
+        return -1;
+    }
+}
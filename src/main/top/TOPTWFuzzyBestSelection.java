@@ -0,0 +1,33 @@
+package top;
+
+/**
+ * @brief Strategy that selects the candidate of the RCL with the best fuzzy membership value.
+ * @details The membership value of a candidate is 1 - score/maxScore, precomputed by TOPTW, so the candidate of
+ * highest score among the lowest cost ones is selected.
+ */
+public class TOPTWFuzzyBestSelection implements TOPTWSelectionStrategy {
+    /**
+     * @brief Method to select the candidate to insert.
+     * @details The alpha and the random source are not used.
+     * @param problem
+     * @param candidates
+     * @param maxSizeRCL
+     * @param alpha
+     * @param random
+     * @return The index of the selected candidate.
+     */
+    @Override
+    public int select(TOPTW problem, TOPTWCandidateList candidates, int maxSizeRCL, double alpha, TOPTWRandomSource random) {
+        int rclSize = candidates.buildRCL(maxSizeRCL);
+        double minMemFunc = Double.MAX_VALUE;
+        int posSelected = -1;
+        for(int i = 0; i < rclSize; i++) {
+            double membershipFunction = problem.getScoreMembership(candidates.getCustomer(candidates.getRCL(i)));
+            if(minMemFunc > membershipFunction) {
+                minMemFunc = membershipFunction;
+                posSelected = i;
+            }
+        }
+        return candidates.getRCL(posSelected);
+    }
+}
@@ -1,23 +1,93 @@
 package top;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class TOPTWGRASP {
  public static double NO_EVALUATED = -1.0;
+    public static final double DEFAULT_ALPHA = 0.8;
+    public static final int DEFAULT_REACTIVE_PERIOD = 100;
+    public static final double DEFAULT_REACTIVE_AMPLIFICATION = 50.0;
+
+    /**
+     * @brief Clock used to measure the time budget of a run.
+     */
+    public enum Clock {
+        /** Elapsed real time. */
+        WALL,
+        /** CPU time of the thread that runs GRASP. */
+        CPU
+    }
     
     private TOPTWSolution solution;
     private int solutionTime;
+    private TOPTWRandomSource random;
+    private TOPTWImprovementPhase improvementPhase;
+    private TOPTWEvaluator evaluator;
+    private TOPTWReportWriter report;
+    private TOPTWSelectionStrategy selection;
+    private final AtomicBoolean cancelled;
+    private volatile boolean lastRunCancelled;
+    private volatile BestSolution currentBest;
+    private TOPTWConvergenceTrace trace;
+    private double[] reactiveProbabilities;
+    private TOPTWSeenSolutions seenSolutions;
+    private boolean duplicate;
+
+    // mejor inserción de cada cliente en cada ruta: [cliente * vehículos + ruta]
+    private TOPTWSolution insertionCacheOwner;
+    private long[] insertionCacheVersion;
+    private int[] insertionCachePredecessor;
+    private double[] insertionCacheCost;
+    private TOPTWCandidateList candidates;
 
     /**
      * @brief Constructor of the class.
      * @param solution
      */
     public TOPTWGRASP(TOPTWSolution sol){
+        this(sol, new TOPTWSplittableRandomSource());
+    }
+
+    /**
+     * @brief Constructor of the class with a seed for reproducible runs.
+     * @param sol
+     * @param seed
+     */
+    public TOPTWGRASP(TOPTWSolution sol, long seed){
+        this(sol, new TOPTWSplittableRandomSource(seed));
+    }
+
+    /**
+     * @brief Constructor of the class with a random source.
+     * @param sol
+     * @param random
+     */
+    public TOPTWGRASP(TOPTWSolution sol, TOPTWRandomSource random){
         this.solution = sol;
         this.solutionTime = 0;
+        this.random = random;
+        this.improvementPhase = new TOPTWLocalSearch();
+        this.evaluator = new TOPTWEvaluator();
+        this.report = new TOPTWReportWriter(System.out, TOPTWReportWriter.Verbosity.SUMMARY);
+        this.selection = new TOPTWFuzzyAlphaCutSelection();
+        this.cancelled = new AtomicBoolean(false);
+        this.lastRunCancelled = false;
+        this.currentBest = new BestSolution(-1.0, -1, null);
+        this.trace = new TOPTWConvergenceTrace();
+        this.seenSolutions = new TOPTWSeenSolutions(TOPTWSeenSolutions.DEFAULT_CAPACITY);
+        this.duplicate = false;
     }
     
     /*procedure GRASP(Max Iterations,Seed)
@@ -44,312 +114,697 @@ public class TOPTWGRASP {
 
     /**
      * @brief Method to execute the GRASP algorithm.
+     * @details The best solution is kept in a buffer reused between improvements and
+     * can be read with getBestSolution() when the run ends. The solutions are written
+     * by the report writer according to its verbosity.
      * @param maxIterations
      * @param maxSizeRCL
      */
     public void GRASP(int maxIterations, int maxSizeRCL) {
         double averageFitness = 0.0;
         double bestSolution = 0.0;
+        int bestIteration = -1;
+        TOPTWSolution best = new TOPTWSolution(this.solution.getProblem());
+        this.clearSeenSolutions();
         for(int i = 0; i < maxIterations; i++) {
             
-            this.computeGreedySolution(maxSizeRCL);
+            // CONSTRUCCIÓN Y BÚSQUEDA LOCAL
+            double fitness = this.buildSolution(maxSizeRCL, TOPTWGRASP.DEFAULT_ALPHA);
+            averageFitness += fitness;
+            if(this.duplicate) { // solución ya construida: ni se imprime ni puede mejorar la mejor
+                continue;
+            }
             
             // IMPRIMIR SOLUCION
-            double fitness = this.solution.evaluateFitness();
-            System.out.println(this.solution.getInfoSolution());
+            this.report.iteration(this.solution, bestSolution < fitness);
             //System.out.println("Press Any Key To Continue...");
             //new java.util.Scanner(System.in).nextLine();
-            averageFitness += fitness;
             if(bestSolution < fitness) {
                 bestSolution = fitness;
+                bestIteration = i;
+                best.copyFrom(this.solution);
             }
             //double fitness = this.solution.printSolution();
-                   
-            /******
-            * 
-            * BÚSQUEDA LOCAL
-            * 
-            */
         }
+        this.currentBest = new BestSolution(bestSolution, bestIteration, bestIteration == -1 ? null : best);
         averageFitness = averageFitness/maxIterations;
-        System.out.println(" --> MEDIA: "+averageFitness);
-        System.out.println(" --> MEJOR SOLUCION: "+bestSolution);
+        this.report.summary(averageFitness, bestSolution);
     }
 
     /**
-     * @brief Method to select a random element from the RCL list.
-     * @param maxTRCL
-     * @return
+     * @brief Method to execute the reactive GRASP algorithm with the default period and amplification.
+     * @param maxIterations
+     * @param rclSizes Candidate sizes of the RCL.
+     * @param alphas Candidate values of the alpha cut.
+     * @return The statistics of the run and the best solution found.
      */
-    public int aleatorySelectionRCL(int maxTRCL) {
-        SecureRandom r = new SecureRandom();
-        byte bytes[] = new byte[20];
-        r.nextBytes(bytes);
-       int low = 0;
-       int high = maxTRCL;
-       int posSelected = r.nextInt(high-low) + low;
-       return posSelected;
+    public TOPTWGRASPResult reactiveGRASP(int maxIterations, int[] rclSizes, double[] alphas) {
+        return this.reactiveGRASP(maxIterations, rclSizes, alphas, TOPTWGRASP.DEFAULT_REACTIVE_PERIOD, TOPTWGRASP.DEFAULT_REACTIVE_AMPLIFICATION);
     }
 
     /**
-     * @brief Method to select the best element from the RCL list.
-     * @param rcl
-     * @return
+     * @brief Method to execute the reactive GRASP algorithm.
+     * @details Every iteration draws a pair of RCL size and alpha from a probability distribution,
+     * which starts uniform. Every period iterations the probability of each pair is set
+     * proportional to (average fitness of the pair / best fitness)^amplification, so the pairs
+     * that build better solutions are used more often. Pairs not used yet keep the highest weight.
+     * @param maxIterations
+     * @param rclSizes Candidate sizes of the RCL.
+     * @param alphas Candidate values of the alpha cut.
+     * @param period Number of iterations between updates of the distribution.
+     * @param amplification Exponent that amplifies the differences between pairs.
+     * @return The statistics of the run and the best solution found.
+     */
+    public TOPTWGRASPResult reactiveGRASP(int maxIterations, int[] rclSizes, double[] alphas, int period, double amplification) {
+        int configurations = rclSizes.length * alphas.length;
+        if(configurations == 0 || period <= 0) {
+            throw new IllegalArgumentException("The reactive GRASP needs at least one RCL size, one alpha and a positive period");
+        }
+        this.reactiveProbabilities = new double[configurations];
+        Arrays.fill(this.reactiveProbabilities, 1.0/configurations);
+        double[] fitnessSums = new double[configurations];
+        int[] counts = new int[configurations];
+        TOPTWSolution best = new TOPTWSolution(this.solution.getProblem());
+        double bestFitness = -1.0;
+        int bestIteration = -1;
+        double averageFitness = 0.0;
+        this.clearSeenSolutions();
+        for(int i = 0; i < maxIterations; i++) {
+            int configuration = this.selectReactiveConfiguration();
+            double fitness = this.buildSolution(rclSizes[configuration / alphas.length], alphas[configuration % alphas.length]);
+            averageFitness += fitness;
+            fitnessSums[configuration] += fitness;
+            counts[configuration]++;
+            if(!this.duplicate && bestFitness < fitness) {
+                bestFitness = fitness;
+                bestIteration = i;
+                best.copyFrom(this.solution);
+            }
+            if((i+1) % period == 0) {
+                this.updateReactiveProbabilities(fitnessSums, counts, bestFitness, amplification);
+            }
+        }
+        if(bestIteration == -1) {
+            best = null;
+        }
+        this.currentBest = new BestSolution(bestFitness, bestIteration, best);
+        if(maxIterations > 0) {
+            averageFitness = averageFitness/maxIterations;
+        }
+        bestFitness = Math.max(bestFitness, 0.0);
+        this.report.summary(averageFitness, bestFitness);
+        return new TOPTWGRASPResult(maxIterations, averageFitness, bestFitness, bestIteration, best);
+    }
+
+    /**
+     * @brief Method to draw a pair of RCL size and alpha from the reactive distribution.
+     * @return The index of the pair.
+     */
+    private int selectReactiveConfiguration() {
+        double r = this.random.nextDouble();
+        double cumulative = 0.0;
+        for(int c = 0; c < this.reactiveProbabilities.length - 1; c++) {
+            cumulative += this.reactiveProbabilities[c];
+            if(r < cumulative) {
+                return c;
+            }
+        }
+        return this.reactiveProbabilities.length - 1;
+    }
+
+    /**
+     * @brief Method to update the reactive distribution from the fitness of every pair.
+     * @param fitnessSums Sum of the fitness of the solutions built with every pair.
+     * @param counts Number of solutions built with every pair.
+     * @param bestFitness Best fitness found so far.
+     * @param amplification
+     */
+    private void updateReactiveProbabilities(double[] fitnessSums, int[] counts, double bestFitness, double amplification) {
+        if(bestFitness <= 0.0) {
+            return;
+        }
+        double total = 0.0;
+        for(int c = 0; c < this.reactiveProbabilities.length; c++) {
+            double quality = counts[c] == 0 ? 1.0 : Math.pow(fitnessSums[c] / counts[c] / bestFitness, amplification);
+            this.reactiveProbabilities[c] = quality;
+            total += quality;
+        }
+        for(int c = 0; c < this.reactiveProbabilities.length; c++) {
+            this.reactiveProbabilities[c] /= total;
+        }
+    }
+
+    /**
+     * @brief Method to get the distribution learned by the last reactive run.
+     * @details The pair of RCL size i and alpha j is at index i * alphas.length + j.
+     * @return A copy of the probabilities, null if no reactive run was executed.
+     */
+    public double[] getReactiveProbabilities() {
+        return this.reactiveProbabilities == null ? null : this.reactiveProbabilities.clone();
+    }
+
+    /**
+     * @brief Method to execute the GRASP algorithm until a time limit is reached or the run is cancelled.
+     * @details The limit is checked before every iteration, so the run may exceed it by the time
+     * of one iteration. If the improvement phase is a VND and the clock is WALL, its descents
+     * also stop at the limit.
+     * @details The best solution found so far can be read from another thread with
+     * getBestSolution() at any moment, and the run can be stopped with cancel().
+     * Every improvement of the best solution adds a point to the convergence trace.
+     * @param maxSizeRCL
+     * @param timeLimit Time limit of the run.
+     * @param unit Unit of the time limit.
+     * @param clock Clock used to measure the time limit.
+     * @return The statistics of the run and the best solution found.
+     */
+    public TOPTWGRASPResult anytimeGRASP(int maxSizeRCL, long timeLimit, TimeUnit unit, Clock clock) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if(clock == Clock.CPU && !threadBean.isCurrentThreadCpuTimeSupported()) {
+            throw new UnsupportedOperationException("The CPU time of the thread is not available");
+        }
+        long budget = unit.toNanos(timeLimit);
+        this.currentBest = new BestSolution(-1.0, -1, null);
+        this.trace.clear();
+        long start = this.now(clock, threadBean);
+        long previousDeadline = TOPTWVND.NO_DEADLINE;
+        TOPTWVND vnd = null;
+        if(clock == Clock.WALL && this.improvementPhase instanceof TOPTWVND) {
+            vnd = (TOPTWVND) this.improvementPhase;
+            previousDeadline = vnd.getDeadline();
+            vnd.setDeadline(start + budget);
+        }
+
+        double averageFitness = 0.0;
+        int iterations = 0;
+        this.clearSeenSolutions();
+        try {
+            while(!this.cancelled.get() && this.now(clock, threadBean) - start < budget) {
+                double fitness = this.buildSolution(maxSizeRCL, TOPTWGRASP.DEFAULT_ALPHA);
+                averageFitness += fitness;
+                if(!this.duplicate && this.currentBest.isImprovedBy(fitness, iterations)) {
+                    this.currentBest = new BestSolution(fitness, iterations, new TOPTWSolution(this.solution));
+                    this.trace.add(this.now(clock, threadBean) - start, iterations, fitness);
+                }
+                iterations++;
+            }
+        } finally {
+            // la cancelación se consume al terminar, así no se pierde una pedida antes de empezar
+            this.lastRunCancelled = this.cancelled.getAndSet(false);
+            if(vnd != null) {
+                vnd.setDeadline(previousDeadline);
+            }
+        }
+
+        if(iterations > 0) {
+            averageFitness = averageFitness/iterations;
+        }
+        BestSolution bestSolution = this.currentBest;
+        double bestFitness = Math.max(bestSolution.fitness, 0.0);
+        this.report.summary(averageFitness, bestFitness);
+        return new TOPTWGRASPResult(iterations, averageFitness, bestFitness, bestSolution.iteration, bestSolution.solution);
+    }
+
+    /**
+     * @brief Method to execute the GRASP algorithm with path relinking (GRASP+PR) until the iterations end.
+     * @param maxIterations
+     * @param maxSizeRCL
+     * @param eliteSize Capacity of the elite pool, 0 to run without path relinking.
+     * @return The statistics of the run and the best solution found.
+     */
+    public TOPTWGRASPResult pathRelinkingGRASP(int maxIterations, int maxSizeRCL, int eliteSize) {
+        return this.pathRelinkingGRASP(maxIterations, maxSizeRCL, eliteSize, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @brief Method to execute the GRASP algorithm with path relinking (GRASP+PR).
+     * @details Every new (non-duplicate) solution, after the improvement phase and whether or not
+     * it changed it, is relinked with a random member of an elite pool of diverse solutions. The
+     * path goes from the elite member toward the new solution, so it explores the surroundings of
+     * the better one. The best solution of the path is improved again and the better of both is
+     * offered to the pool. Duplicated constructions are neither relinked nor offered to the pool.
+     * @details The run stops early when the best fitness reaches the target, so the
+     * iterations and the convergence trace give the time to target. With an elite pool of
+     * capacity 0 the run is a plain GRASP, which is the baseline to compare with.
+     * @param maxIterations
+     * @param maxSizeRCL
+     * @param eliteSize Capacity of the elite pool, 0 to run without path relinking.
+     * @param targetFitness Fitness that stops the run, POSITIVE_INFINITY to run all the iterations.
+     * @return The statistics of the run and the best solution found.
+     */
+    public TOPTWGRASPResult pathRelinkingGRASP(int maxIterations, int maxSizeRCL, int eliteSize, double targetFitness) {
+        TOPTW problem = this.solution.getProblem();
+        TOPTWElitePool pool = new TOPTWElitePool(eliteSize);
+        TOPTWPathRelinking pathRelinking = new TOPTWPathRelinking();
+        TOPTWSolution relinked = new TOPTWSolution(problem);
+        TOPTWSolution best = new TOPTWSolution(problem);
+        double bestFitness = -1.0;
+        int bestIteration = -1;
+        double averageFitness = 0.0;
+        int iterations = 0;
+        this.trace.clear();
+        this.clearSeenSolutions();
+        long start = System.nanoTime();
+        while(iterations < maxIterations && bestFitness < targetFitness) {
+            double fitness = this.buildSolution(maxSizeRCL, TOPTWGRASP.DEFAULT_ALPHA);
+            averageFitness += fitness;
+            if(!this.duplicate) {
+                TOPTWSolution candidate = this.solution;
+                if(pool.size() > 0) {
+                    // RECONEXIÓN DE CAMINOS DESDE UNA SOLUCIÓN ÉLITE HACIA LA NUEVA
+                    TOPTWSolution elite = pool.get(this.random.nextInt(pool.size()));
+                    if(pathRelinking.relink(elite, this.solution, relinked) >= 0) {
+                        if(this.improvementPhase != null) {
+                            this.improvementPhase.improve(relinked);
+                        }
+                        double relinkedFitness = this.evaluator.evaluate(relinked);
+                        if(relinkedFitness > fitness) {
+                            candidate = relinked;
+                            fitness = relinkedFitness;
+                        }
+                    }
+                }
+                pool.add(candidate, fitness);
+                if(fitness > bestFitness) {
+                    best.copyFrom(candidate);
+                    bestFitness = fitness;
+                    bestIteration = iterations;
+                    this.trace.add(System.nanoTime() - start, iterations, fitness);
+                }
+            }
+            iterations++;
+        }
+
+        if(iterations > 0) {
+            averageFitness = averageFitness/iterations;
+        }
+        bestFitness = Math.max(bestFitness, 0.0);
+        TOPTWSolution bestSolution = bestIteration == -1 ? null : best;
+        this.currentBest = new BestSolution(bestFitness, bestIteration, bestSolution);
+        this.report.summary(averageFitness, bestFitness);
+        return new TOPTWGRASPResult(iterations, averageFitness, bestFitness, bestIteration, bestSolution);
+    }
+
+    /**
+     * @brief Method to read a clock.
+     * @param clock
+     * @param threadBean Source of the CPU time of the current thread.
+     * @return The time in nanoseconds.
+     */
+    private long now(Clock clock, ThreadMXBean threadBean) {
+        return clock == Clock.CPU ? threadBean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * @brief Method to stop the anytime run in progress.
+     * @details It can be called from any thread; the run stops after the current iteration.
+     * If no run is in progress the request is kept and the next anytime run stops before
+     * its first iteration. The request is cleared when the run that consumes it returns.
+     */
+    public void cancel() {
+        this.cancelled.set(true);
+    }
+
+    /**
+     * @brief Method to know if the last anytime run was cancelled.
+     * @return True if it was stopped by cancel(), false otherwise.
+     */
+    public boolean isCancelled() {
+        return this.lastRunCancelled;
+    }
+
+    /**
+     * @brief Method to get the best solution of the last run, or of the anytime run in progress.
+     * @details It can be called from any thread. The solution is a snapshot that is never modified.
+     * @return The best solution, null if no iteration has finished.
+     */
+    public TOPTWSolution getBestSolution() {
+        return this.currentBest.solution;
+    }
+
+    /**
+     * @brief Method to get the fitness of the best solution of the last run, or of the anytime run in progress.
+     * @return The best fitness, -1 if no iteration has finished.
+     */
+    public double getBestFitness() {
+        return this.currentBest.fitness;
+    }
+
+    /**
+     * @brief Method to get the convergence trace of the last anytime or path relinking run.
+     * @details The trace is filled by the thread that runs GRASP, so it must be read after the run.
+     * @return The convergence trace.
+     */
+    public TOPTWConvergenceTrace getConvergenceTrace() {
+        return this.trace;
+    }
+
+    /**
+     * @brief Method to execute the GRASP algorithm over several threads from a seed.
+     * @details The random source of this object is restarted with the seed.
+     * @param maxIterations
+     * @param maxSizeRCL
+     * @param threads Number of worker threads.
+     * @param seed Seed of the run.
+     * @return The statistics of the run and the best solution found.
+     */
+    public TOPTWGRASPResult parallelGRASP(int maxIterations, int maxSizeRCL, int threads, long seed) {
+        this.random.setSeed(seed);
+        return this.parallelGRASP(maxIterations, maxSizeRCL, threads);
+    }
+
+    /**
+     * @brief Method to execute the GRASP algorithm spreading the iterations over several threads.
+     * @details Every worker owns a private solution. Iteration i always uses the i-th stream split
+     * from the random source of this object, so a seeded source gives the same result whatever the
+     * number of threads. Ties between solutions with the same fitness are broken by the lowest iteration.
+     * @details A worker only meets again the solutions it built in earlier iterations, so skipping its
+     * duplicates never changes the best solution.
+     * @details Every iteration improves its solution with a fresh copy of the improvement phase of
+     * this object, taken when the run starts, so a phase that adapts itself (such as a VND with an
+     * adaptive ordering) never carries what it learned from one iteration to another and the result
+     * does not depend on which worker runs each iteration. Adaptive orderings therefore only learn
+     * in sequential runs. The counters of all the copies are added to the phase of this object at
+     * the end of the run.
+     * @param maxIterations
+     * @param maxSizeRCL
+     * @param threads Number of worker threads.
+     * @return The statistics of the run and the best solution found.
      */
-    public int fuzzySelectionBestFDRCL(ArrayList< double[] > rcl) {
-        double[] membershipFunction = new double[rcl.size()];
-        double maxSc = this.getMaxScore();
-        for(int j=0; j < rcl.size(); j++) {
-            membershipFunction[j] = 1 - ((rcl.get(j)[4])/maxSc);
+    public TOPTWGRASPResult parallelGRASP(int maxIterations, int maxSizeRCL, int threads) {
+        final TOPTW problem = this.solution.getProblem();
+        final TOPTWRandomSource[] streams = new TOPTWRandomSource[maxIterations];
+        for(int i = 0; i < maxIterations; i++) { streams[i] = this.random.split(); }
+        final double[] fitnesses = new double[maxIterations];
+        final AtomicInteger nextIteration = new AtomicInteger(0);
+        final AtomicReference<BestSolution> best = new AtomicReference<BestSolution>(new BestSolution(-1.0, -1, null));
+
+        // plantilla congelada: cada iteración parte de una copia suya
+        final TOPTWImprovementPhase template = this.improvementPhase == null ? null : this.improvementPhase.copy();
+        final TOPTWImprovementPhase[] phaseCounters = new TOPTWImprovementPhase[threads];
+        List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+        for(int t = 0; t < threads; t++) {
+            final TOPTWGRASP worker = new TOPTWGRASP(new TOPTWSolution(problem));
+            final TOPTWImprovementPhase counters = template == null ? null : template.copy();
+            phaseCounters[t] = counters;
+            worker.selection = this.selection;
+            worker.seenSolutions = this.seenSolutions == null ? null : new TOPTWSeenSolutions(this.seenSolutions.getCapacity());
+            workers.add(new Callable<Void>() {
+                public Void call() {
+                    int i;
+                    while((i = nextIteration.getAndIncrement()) < maxIterations) {
+                        worker.random = streams[i];
+                        worker.improvementPhase = template == null ? null : template.copy();
+                        double fitness = worker.buildSolution(maxSizeRCL, TOPTWGRASP.DEFAULT_ALPHA);
+                        fitnesses[i] = fitness;
+                        if(counters != null) {
+                            counters.addCounters(worker.improvementPhase);
+                        }
+                        if(!worker.duplicate) {
+                            publishBestSolution(best, fitness, i, worker.solution);
+                        }
+                    }
+                    return null;
+                }
+            });
         }
-        double minMemFunc = Double.MAX_VALUE;
-        int posSelected = -1;
-        for(int i = 0; i < rcl.size(); i++) {
-            if(minMemFunc > membershipFunction[i]) {
-                minMemFunc = membershipFunction[i];
-                posSelected = i;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for(Future<Void> future : pool.invokeAll(workers)) {
+                future.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        if(this.improvementPhase != null) {
+            for(TOPTWImprovementPhase counters : phaseCounters) { this.improvementPhase.addCounters(counters); }
+        }
+
+        double averageFitness = 0.0;
+        for(int i = 0; i < maxIterations; i++) { averageFitness += fitnesses[i]; }
+        averageFitness = averageFitness/maxIterations;
+        BestSolution bestSolution = best.get();
+        this.currentBest = bestSolution;
+        double bestFitness = Math.max(bestSolution.fitness, 0.0);
+        this.report.summary(averageFitness, bestFitness);
+        return new TOPTWGRASPResult(maxIterations, averageFitness, bestFitness, bestSolution.iteration, bestSolution.solution);
+    }
+
+    /**
+     * @brief Method to publish a solution as the shared best one if it improves it.
+     * @details The snapshot is only taken when the solution may win, and the shared
+     * reference is updated with compare-and-set so workers never block each other.
+     * @param best Shared best solution.
+     * @param fitness Fitness of the solution.
+     * @param iteration Iteration that built the solution.
+     * @param solution Solution of the worker.
+     */
+    private static void publishBestSolution(AtomicReference<BestSolution> best, double fitness, int iteration, TOPTWSolution solution) {
+        BestSolution current = best.get();
+        if(!current.isImprovedBy(fitness, iteration)) { return; }
+        BestSolution candidate = new BestSolution(fitness, iteration, new TOPTWSolution(solution));
+        while(current.isImprovedBy(fitness, iteration)) {
+            if(best.compareAndSet(current, candidate)) { return; }
+            current = best.get();
         }
-        return posSelected;
     }
 
     /**
-     * @brief Method to select a random element from the RCL list.
-     * @param rcl
+     * @brief Immutable snapshot of the best solution shared by the workers.
+     */
+    private static final class BestSolution {
+        final double fitness;
+        final int iteration;
+        final TOPTWSolution solution;
+
+        BestSolution(double fitness, int iteration, TOPTWSolution solution) {
+            this.fitness = fitness;
+            this.iteration = iteration;
+            this.solution = solution;
+        }
+
+        boolean isImprovedBy(double otherFitness, int otherIteration) {
+            return otherFitness > this.fitness || (otherFitness == this.fitness && otherIteration < this.iteration);
+        }
+    }
+
+    /**
+     * @brief Method to build a solution and improve it, unless the same construction was already seen.
+     * @details The fingerprint of the constructed solution is looked up in the set of seen solutions.
+     * If it is there, the improvement and the evaluation are skipped, the fitness obtained the first
+     * time is returned and the duplicate flag is set; the solution then holds the unimproved
+     * construction and must not be used. Averages stay the same as without the set, unless two
+     * different constructions collide in 64 bits.
+     * @param maxSizeRCL
      * @param alpha
-     * @return
+     * @return The fitness of the improved solution.
      */
-    public int fuzzySelectionAlphaCutRCL(ArrayList< double[] > rcl, double alpha) {
-        ArrayList< double[] > rclAlphaCut = new ArrayList< double[] >();
-        ArrayList< Integer > rclPos = new ArrayList< Integer >();
-        double[] membershipFunction = new double[rcl.size()];
-        double maxSc = this.getMaxScore();
-        for(int j=0; j < rcl.size(); j++) {
-            membershipFunction[j] = 1 - ((rcl.get(j)[4])/maxSc);
-            if(membershipFunction[j] <= alpha) {
-                rclAlphaCut.add(rcl.get(j));
-                rclPos.add(j);
+    private double buildSolution(int maxSizeRCL, double alpha) {
+        this.computeGreedySolution(maxSizeRCL, alpha);
+        long fingerprint = this.solution.getFingerprint();
+        this.duplicate = false;
+        if(this.seenSolutions != null) {
+            double fitness = this.seenSolutions.get(fingerprint);
+            if(!Double.isNaN(fitness)) {
+                this.duplicate = true;
+                return fitness;
             }
         }
-        int posSelected = -1;
-        if(rclAlphaCut.size() > 0) {
-            posSelected = rclPos.get(aleatorySelectionRCL(rclAlphaCut.size()));
-        } else {
-            posSelected = aleatorySelectionRCL(rcl.size());
+        if(this.improvementPhase != null) {
+            this.improvementPhase.improve(this.solution);
+        }
+        double fitness = this.evaluator.evaluate(this.solution);
+        if(this.seenSolutions != null) {
+            this.seenSolutions.put(fingerprint, fitness);
         }
-        return posSelected;
+        return fitness;
     }
 
     /**
-     * @brief Method to compute the greedy solution.
+     * @brief Method to empty the set of seen solutions at the start of a run.
+     */
+    private void clearSeenSolutions() {
+        if(this.seenSolutions != null) {
+            this.seenSolutions.clear();
+        }
+    }
+
+    /**
+     * @brief Method to set the capacity of the set of solutions already seen.
+     * @details Solutions rebuilt during a run are neither improved, evaluated nor printed again.
+     * @param capacity Maximum number of solutions remembered, 0 to disable the set.
+     */
+    public void setSeenSolutionsCapacity(int capacity) {
+        this.seenSolutions = capacity > 0 ? new TOPTWSeenSolutions(capacity) : null;
+    }
+
+    /**
+     * @brief Method to compute the greedy solution with the default alpha.
      * @param maxSizeRCL
      */
     public void computeGreedySolution(int maxSizeRCL) {
-        // inicialización
+        this.computeGreedySolution(maxSizeRCL, TOPTWGRASP.DEFAULT_ALPHA);
+    }
+
+    /**
+     * @brief Method to compute the greedy solution.
+     * @param maxSizeRCL
+     * @param alpha Parameter of the selection strategy.
+     */
+    public void computeGreedySolution(int maxSizeRCL, double alpha) {
+        // inicialización (los tiempos de salida los mantiene la solución)
         this.solution.initSolution();
         
-        // tiempo de salida y score por ruta y cliente
-        ArrayList<ArrayList<Double>> departureTimesPerClient = new ArrayList<ArrayList<Double>>();
-        ArrayList<Double> init = new ArrayList<Double>();
-        for(int z = 0; z < this.solution.getProblem().getPOIs()+this.solution.getProblem().getVehicles(); z++) {init.add(0.0);}
-        departureTimesPerClient.add(0, init);
-        
-        // clientes
-        ArrayList<Integer> customers = new ArrayList<Integer>();
-        for(int j = 1; j <= this.solution.getProblem().getPOIs(); j++) { customers.add(j); }
-        
-        // Evaluar coste incremental de los elementos candidatos
-        ArrayList< double[] > candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
-        
-        Collections.sort(candidates, new Comparator<double[]>() {
-            public int compare(double[] a, double[] b) {   
-                return Double.compare(a[a.length-2], b[b.length-2]);
-            }
-        });
+        // Evaluar coste incremental de los elementos candidatos (clientes no visitados de la solución)
+        TOPTWCandidateList candidates = this.comprehensiveEvaluation();
 
-        int maxTRCL = maxSizeRCL;
+        TOPTW problem = this.solution.getProblem();
         boolean existCandidates = true;
         
-        while(!customers.isEmpty() && existCandidates) {
-            if(!candidates.isEmpty()) {
-                //Construir lista restringida de candidatos
-                ArrayList< double[] > rcl = new ArrayList< double[] >();
-                maxTRCL = maxSizeRCL;
-                if(maxTRCL > candidates.size()) { maxTRCL = candidates.size(); }
-                for(int j=0; j < maxTRCL; j++) { rcl.add(candidates.get(j)); }
-
-                //Selección aleatoria o fuzzy de candidato de la lista restringida
-                int posSelected = -1;
-                int selection = 3;
-                double alpha = 0.8;
-                switch (selection) {
-                    case 1:  posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria
-                             break;
-                    case 2:  posSelected = this.fuzzySelectionBestFDRCL(rcl);   // Selección fuzzy con mejor valor de alpha
-                             break;
-                    case 3:  posSelected = this.fuzzySelectionAlphaCutRCL(rcl, alpha); // Selección fuzzy con alpha corte aleatoria
-                             break;
-                    default: posSelected = this.aleatorySelectionRCL(maxTRCL);  // Selección aleatoria por defecto
-                             break;
-                }
-                
-                double[] candidateSelected = rcl.get(posSelected);
-                for(int j=0; j < customers.size(); j++) {
-                    if(customers.get(j)==candidateSelected[0]) {
-                        customers.remove(j);
-                    }
-                }              
-                
-                updateSolution(candidateSelected, departureTimesPerClient);
+        while(this.solution.getUnvisitedCount() > 0 && existCandidates) {
+            if(candidates.size() > 0) {
+                //Construir la lista restringida de candidatos y seleccionar uno según la estrategia
+                int candidateSelected = this.selection.select(problem, candidates, maxSizeRCL, alpha, this.random);
+                int customer = candidates.getCustomer(candidateSelected);
+                updateSolution(customer, candidates.getRoute(candidateSelected), candidates.getPredecessor(candidateSelected));
 
             } else { // No hay candidatos a insertar en la solución, crear otra ruta
                 if(this.solution.getCreatedRoutes() < this.solution.getProblem().getVehicles()) {
-                    int newDepot = this.solution.addRoute();
-                    ArrayList<Double> initNew = new ArrayList<Double>();
-                    for(int z = 0; z < this.solution.getProblem().getPOIs()+this.solution.getProblem().getVehicles(); z++) {initNew.add(0.0);}
-                    departureTimesPerClient.add(initNew);
+                    this.solution.addRoute();
                 } 
                 else {
                     existCandidates = false;
                 }
             }
             //Reevaluar coste incremental de los elementos candidatos
-            candidates.clear();
-            candidates = this.comprehensiveEvaluation(customers, departureTimesPerClient);
-            Collections.sort(candidates, new Comparator<double[]>() {
-                public int compare(double[] a, double[] b) {
-                    return Double.compare(a[a.length-2], b[b.length-2]);
-                }
-            });
+            candidates = this.comprehensiveEvaluation();
         }
         
     }
 
     /**
      * @brief Method to update the solution.
-     * @param candidateSelected
-     * @param departureTimes
-     */
-    public void updateSolution(double[] candidateSelected, ArrayList< ArrayList< Double > > departureTimes) {
-        // Inserción del cliente en la ruta  return: cliente, ruta, predecesor, coste
-        this.solution.setPredecessor((int)candidateSelected[0], (int)candidateSelected[2]);
-        this.solution.setSuccessor((int)candidateSelected[0], this.solution.getSuccessor((int)candidateSelected[2]));
-        this.solution.setSuccessor((int)candidateSelected[2], (int)candidateSelected[0]);
-        this.solution.setPredecessor(this.solution.getSuccessor((int)candidateSelected[0]), (int)candidateSelected[0]);
-        
-        // Actualización de las estructuras de datos y conteo a partir de la posición a insertar
-        double costInsertionPre = departureTimes.get((int)candidateSelected[1]).get((int)candidateSelected[2]);
-        ArrayList<Double> route = departureTimes.get((int)candidateSelected[1]);
-        int pre=(int)candidateSelected[2], suc=-1;
-        int depot = this.solution.getIndexRoute((int)candidateSelected[1]);
-        do {
-            suc = this.solution.getSuccessor(pre);
-            costInsertionPre += this.solution.getDistance(pre, suc);
-            
-            if(costInsertionPre < this.solution.getProblem().getReadyTime(suc)) {
-                costInsertionPre = this.solution.getProblem().getReadyTime(suc);
-            }
-            costInsertionPre += this.solution.getProblem().getServiceTime(suc);
-             
-            if(!this.solution.isDepot(suc))
-                route.set(suc, costInsertionPre);
-            pre = suc;
-        } while((suc != depot));
+     * @param customer Customer to insert.
+     * @param route Route in which the customer is inserted.
+     * @param predecessor Node after which the customer is inserted.
+     */
+    public void updateSolution(int customer, int route, int predecessor) {
+        // Inserción del cliente en la ruta
+        this.solution.insertAfter(customer, predecessor);
         
-        // Actualiza tiempos
-        departureTimes.set((int)candidateSelected[1], route);
+        // Actualización de los tiempos de la ruta a partir de la posición a insertar
+        this.solution.updateRouteTimes(route);
     }
 
     //return: cliente, ruta, predecesor, coste tiempo, score
     /**
      * @brief Method to evaluate the comprehensive evaluation of the solution.
-     * @param customers
-     * @param departureTimes
-     * @return
+     * @details The best insertion of every customer in every route is cached together with
+     * the version of the route, so only the routes modified since the last call are walked.
+     * @details The candidates are the POIs not visited by the solution, in ascending order.
+     * @return The candidate list, reused between calls.
      */
-    public ArrayList< double[] > comprehensiveEvaluation(ArrayList<Integer> customers, ArrayList< ArrayList< Double > > departureTimes) {
-        ArrayList< double[] > candidatesList = new ArrayList< double[] >();
-        double[] infoCandidate = new double[5];
-        boolean validFinalInsertion = true;
-        infoCandidate[0] = -1;
-        infoCandidate[1] = -1;
-        infoCandidate[2] = -1;
-        infoCandidate[3] = Double.MAX_VALUE;
-        infoCandidate[4] = -1;
+    public TOPTWCandidateList comprehensiveEvaluation() {
+        int vehicles = this.solution.getProblem().getVehicles();
+        this.prepareInsertionCache();
+        this.candidates.clear();
         
-        for(int c = 0; c < customers.size(); c++) { // clientes disponibles
+        for(int candidate = this.solution.nextUnvisited(1); candidate != -1; candidate = this.solution.nextUnvisited(candidate+1)) { // clientes disponibles
+            int bestRoute = -1;
+            double bestCost = Double.MAX_VALUE;
             for(int k = 0; k < this.solution.getCreatedRoutes(); k++) { // rutas creadas
-                validFinalInsertion = true;
-                int depot = this.solution.getIndexRoute(k);
-                int pre=-1, suc=-1;
-                double costInsertion = 0;
-                pre = depot;
-                int candidate = customers.get(c);
-                do {                                                // recorremos la ruta
-                    validFinalInsertion = true;
-                    suc = this.solution.getSuccessor(pre);
-                    double timesUntilPre = departureTimes.get(k).get(pre) + this.solution.getDistance(pre, candidate);
-                    if(timesUntilPre < (this.solution.getProblem().getDueTime(candidate))) {
-                        double costCand = 0;
-                        if(timesUntilPre < this.solution.getProblem().getReadyTime(candidate)) {
-                            costCand = this.solution.getProblem().getReadyTime(candidate);
-                        } else { costCand = timesUntilPre; }
-                        costCand +=  this.solution.getProblem().getServiceTime(candidate);
-                        if(costCand > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false; }
-                        
-                        // Comprobar TW desde candidate hasta sucesor
-                        double timesUntilSuc = costCand + this.solution.getDistance(candidate, suc);
-                        if(timesUntilSuc < (this.solution.getProblem().getDueTime(suc))) {                                
-                            double costSuc = 0;
-                            if(timesUntilSuc < this.solution.getProblem().getReadyTime(suc)) {
-                                costSuc = this.solution.getProblem().getReadyTime(suc);
-                            } else { costSuc = timesUntilSuc; }
-                            costSuc +=  this.solution.getProblem().getServiceTime(suc);
-                            costInsertion = costSuc;                            
-                            if(costSuc > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false;}
-
-                            int pre2=suc, suc2 = -1;
-                            if(suc != depot)
-                                do {
-                                    suc2 = this.solution.getSuccessor(pre2);
-                                    double timesUntilSuc2 = costInsertion + this.solution.getDistance(pre2, suc2);
-                                    if(timesUntilSuc2 < (this.solution.getProblem().getDueTime(suc2))) {
-                                        if(timesUntilSuc2 < this.solution.getProblem().getReadyTime(suc2)) {
-                                            costInsertion = this.solution.getProblem().getReadyTime(suc2);
-                                        } else { costInsertion = timesUntilSuc2; }
-                                        costInsertion += this.solution.getProblem().getServiceTime(suc2);
-                                        if(costInsertion > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false; }
-                                    } else { validFinalInsertion = false; }         
-                                    pre2 = suc2;
-                                } while((suc2 != depot) && validFinalInsertion);
-                        } else { validFinalInsertion = false; }
-                    } else { validFinalInsertion = false; }
-
-                    if(validFinalInsertion==true) { // cliente, ruta, predecesor, coste
-                        if(costInsertion < infoCandidate[3]) {
-                            infoCandidate[0] = candidate; infoCandidate[1] = k; infoCandidate[2] = pre; infoCandidate[3] = costInsertion; infoCandidate[4] = this.solution.getProblem().getScore(candidate); // cliente, ruta, predecesor, coste, score
-                        }
-                    }
-                    
-                    pre = suc;
-                } while(suc != depot);
+                int index = candidate * vehicles + k;
+                if(this.insertionCacheVersion[index] != this.solution.getRouteVersion(k)) {
+                    this.evaluateInsertion(candidate, k, index);
+                }
+                if(this.insertionCachePredecessor[index] != -1 && this.insertionCacheCost[index] < bestCost) {
+                    bestRoute = k;
+                    bestCost = this.insertionCacheCost[index];
+                }
             } //rutas creadas
             
             // almacenamos en la lista de candidatos la mejor posición de inserción para el cliente
-            if(infoCandidate[0]!=-1 && infoCandidate[1]!=-1 && infoCandidate[2]!=-1 && infoCandidate[3] != Double.MAX_VALUE && infoCandidate[4]!=-1) {
-                double[] infoCandidate2 = new double[5];
-                infoCandidate2[0] = infoCandidate[0];  infoCandidate2[1] = infoCandidate[1];  
-                infoCandidate2[2] = infoCandidate[2];  infoCandidate2[3] = infoCandidate[3];
-                infoCandidate2[4] = infoCandidate[4];
-                candidatesList.add(infoCandidate2);
+            if(bestRoute != -1) { // cliente, ruta, predecesor, coste, score
+                this.candidates.add(candidate, bestRoute, this.insertionCachePredecessor[candidate * vehicles + bestRoute],
+                        bestCost, this.solution.getProblem().getScore(candidate));
             }
-            validFinalInsertion = true;
-            infoCandidate[0] = -1;  infoCandidate[1] = -1;
-            infoCandidate[2] = -1;  infoCandidate[3] = Double.MAX_VALUE;
-            infoCandidate[4] = -1;
         } // cliente
 
-        return candidatesList;        
+        return this.candidates;        
+    }
+
+    /**
+     * @brief Method to evaluate the best insertion of a customer in a route and cache it.
+     * @param candidate Customer to insert.
+     * @param k Index of the route.
+     * @param index Position of the customer and the route in the cache.
+     */
+    private void evaluateInsertion(int candidate, int k, int index) {
+        TOPTW problem = this.solution.getProblem();
+        boolean validFinalInsertion = true;
+        int depot = this.solution.getIndexRoute(k);
+        int pre=-1, suc=-1;
+        double costInsertion = 0;
+        int bestPre = -1;
+        double bestCost = Double.MAX_VALUE;
+        pre = depot;
+        double routeEndTime = this.solution.getRouteEndTime(k);
+        do {                                                // recorremos la ruta
+            validFinalInsertion = true;
+            suc = this.solution.getSuccessor(pre);
+            if(!problem.isCompatible(pre, candidate) || !problem.isCompatible(candidate, suc)) { // arcos imposibles
+                pre = suc;
+                continue;
+            }
+            double timesUntilPre = this.solution.getDepartureTime(pre) + this.solution.getDistance(pre, candidate);
+            if(timesUntilPre < (this.solution.getProblem().getDueTime(candidate))) {
+                double costCand = 0;
+                if(timesUntilPre < this.solution.getProblem().getReadyTime(candidate)) {
+                    costCand = this.solution.getProblem().getReadyTime(candidate);
+                } else { costCand = timesUntilPre; }
+                costCand +=  this.solution.getProblem().getServiceTime(candidate);
+                if(costCand > this.solution.getProblem().getMaxTimePerRoute()) { validFinalInsertion = false; }
+                
+                // Comprobar TW desde candidate hasta el final de la ruta con el desplazamiento en el sucesor
+                double shiftSuc = costCand + this.solution.getDistance(candidate, suc) - this.solution.getArrivalTime(suc);
+                if(validFinalInsertion && this.solution.isFeasibleShift(suc, shiftSuc)) {
+                    costInsertion = routeEndTime + this.solution.getShiftAtRouteEnd(suc, shiftSuc);
+                } else { validFinalInsertion = false; }
+            } else { validFinalInsertion = false; }
+
+            if(validFinalInsertion==true) { // predecesor, coste
+                if(costInsertion < bestCost) {
+                    bestPre = pre; bestCost = costInsertion;
+                }
+            }
+            
+            pre = suc;
+        } while(suc != depot);
+        this.insertionCacheVersion[index] = this.solution.getRouteVersion(k);
+        this.insertionCachePredecessor[index] = bestPre;
+        this.insertionCacheCost[index] = bestCost;
+    }
+
+    /**
+     * @brief Method to bind the insertion cache and the candidate list to the current solution.
+     * @details Route versions only identify a route within one solution, so the cache is
+     * invalidated when the solution changes.
+     */
+    private void prepareInsertionCache() {
+        if(this.insertionCacheOwner == this.solution) { return; }
+        int size = (this.solution.getProblem().getPOIs() + 1) * this.solution.getProblem().getVehicles();
+        if(this.insertionCacheVersion == null || this.insertionCacheVersion.length != size) {
+            this.insertionCacheVersion = new long[size];
+            this.insertionCachePredecessor = new int[size];
+            this.insertionCacheCost = new double[size];
+            this.candidates = new TOPTWCandidateList(this.solution.getProblem().getPOIs());
+        }
+        Arrays.fill(this.insertionCacheVersion, -1);
+        this.insertionCacheOwner = this.solution;
     }
 
     /**
@@ -368,6 +823,39 @@ public class TOPTWGRASP {
         this.solution = solution;
     }
 
+    /**
+     * @brief Method to get the random source.
+     * @return
+     */
+    public TOPTWRandomSource getRandomSource() {
+        return random;
+    }
+
+    /**
+     * @brief Method to set the random source.
+     * @param random
+     */
+    public void setRandomSource(TOPTWRandomSource random) {
+        this.random = random;
+    }
+
+    /**
+     * @brief Method to get the improvement phase applied after every construction.
+     * @return The improvement phase, null if it is disabled.
+     */
+    public TOPTWImprovementPhase getImprovementPhase() {
+        return this.improvementPhase;
+    }
+
+    /**
+     * @brief Method to set the improvement phase applied after every construction.
+     * @details A local search is used by default; a VND can be set instead.
+     * @param improvementPhase Improvement phase, null to disable it.
+     */
+    public void setImprovementPhase(TOPTWImprovementPhase improvementPhase) {
+        this.improvementPhase = improvementPhase;
+    }
+
     /**
      * @brief Method to get the solution time.
      * @return
@@ -384,17 +872,46 @@ public class TOPTWGRASP {
         this.solutionTime = solutionTime;
     }
 
+    /**
+     * @brief Method to get the writer of the reports of the runs.
+     * @return The report writer.
+     */
+    public TOPTWReportWriter getReportWriter() {
+        return this.report;
+    }
+
+    /**
+     * @brief Method to set the writer of the reports of the runs.
+     * @details By default the summary of every run is written to the standard output.
+     * @param report
+     */
+    public void setReportWriter(TOPTWReportWriter report) {
+        this.report = report;
+    }
+
     /**
      * @brief Method to get the max score.
      * @return
      */
     public double getMaxScore() {
-        double maxSc = -1.0;
-        for(int i = 0; i < this.solution.getProblem().getScore().length; i++) {
-            if(this.solution.getProblem().getScore(i) > maxSc)
-                maxSc = this.solution.getProblem().getScore(i);
-        }
-        return maxSc;
+        return this.solution.getProblem().getMaxScore();
+    }
+
+    /**
+     * @brief Method to get the strategy to select the candidates of the construction.
+     * @return The selection strategy.
+     */
+    public TOPTWSelectionStrategy getSelectionStrategy() {
+        return this.selection;
+    }
+
+    /**
+     * @brief Method to set the strategy to select the candidates of the construction.
+     * @details The fuzzy alpha cut selection is used by default.
+     * @param selection
+     */
+    public void setSelectionStrategy(TOPTWSelectionStrategy selection) {
+        this.selection = selection;
     }
 
 }
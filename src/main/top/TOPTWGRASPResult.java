@@ -0,0 +1,68 @@
+package top;
+
+/**
+ * @brief Class to store the statistics of a GRASP run.
+ */
+public class TOPTWGRASPResult {
+    private final int iterations;
+    private final double averageFitness;
+    private final double bestFitness;
+    private final int bestIteration;
+    private final TOPTWSolution bestSolution;
+
+    /**
+     * @brief Constructor of the class.
+     * @param iterations Number of iterations executed.
+     * @param averageFitness Average fitness of the constructed solutions.
+     * @param bestFitness Fitness of the best solution.
+     * @param bestIteration Iteration in which the best solution was found.
+     * @param bestSolution Snapshot of the best solution.
+     */
+    public TOPTWGRASPResult(int iterations, double averageFitness, double bestFitness, int bestIteration, TOPTWSolution bestSolution) {
+        this.iterations = iterations;
+        this.averageFitness = averageFitness;
+        this.bestFitness = bestFitness;
+        this.bestIteration = bestIteration;
+        this.bestSolution = bestSolution;
+    }
+
+    /**
+     * @brief Method to get the number of iterations executed.
+     * @return The number of iterations.
+     */
+    public int getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * @brief Method to get the average fitness.
+     * @return The average fitness.
+     */
+    public double getAverageFitness() {
+        return this.averageFitness;
+    }
+
+    /**
+     * @brief Method to get the fitness of the best solution.
+     * @return The best fitness.
+     */
+    public double getBestFitness() {
+        return this.bestFitness;
+    }
+
+    /**
+     * @brief Method to get the iteration in which the best solution was found.
+     * @return The iteration of the best solution, -1 if no iteration was executed.
+     */
+    public int getBestIteration() {
+        return this.bestIteration;
+    }
+
+    /**
+     * @brief Method to get the best solution.
+     * @return The best solution, null if no iteration was executed.
+     */
+    public TOPTWSolution getBestSolution() {
+        return this.bestSolution;
+    }
+}
@@ -0,0 +1,31 @@
+package top;
+
+/**
+ * @brief Interface of the phases that improve the solutions built by GRASP.
+ */
+public interface TOPTWImprovementPhase {
+    /**
+     * @brief Method to improve a solution in place.
+     * @param solution Solution to improve, with the times of its routes up to date.
+     * @return True if the solution was improved, false otherwise.
+     */
+    boolean improve(TOPTWSolution solution);
+
+    /**
+     * @brief Method to create a phase with the same configuration and no counters.
+     * @details Every thread must use its own phase.
+     * @return The new phase.
+     */
+    TOPTWImprovementPhase copy();
+
+    /**
+     * @brief Method to add the counters of a copy of this phase to this one.
+     * @param other Phase created with copy().
+     */
+    void addCounters(TOPTWImprovementPhase other);
+
+    /**
+     * @brief Method to reset the counters of the phase.
+     */
+    void resetCounters();
+}
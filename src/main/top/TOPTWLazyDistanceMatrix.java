@@ -0,0 +1,97 @@
+package top;
+
+/**
+ * @brief Distance matrix that computes the Euclidean distances on demand from the coordinates.
+ * @details Memory grows with the cache, not with the square of the number of nodes. Recent
+ * pairs are kept in a direct-mapped cache: each pair has a single slot and a new pair evicts
+ * the one stored there. The cache is kept in two primitive arrays written in place, so a
+ * miss allocates nothing: the distance of the slot and its key, which is the packed pair
+ * XOR the bits of the distance. A read is only accepted if both words agree, so the cache can
+ * be shared by several threads without locks; a thread that reads a slot while another one
+ * writes it sees a mismatch and just computes the distance again.
+ */
+public class TOPTWLazyDistanceMatrix implements TOPTWDistanceMatrix {
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+    private final int size;
+    private final double[] x;
+    private final double[] y;
+    private final long[] keys;
+    private final double[] distances;
+    private final int mask;
+
+    /**
+     * @brief Constructor of the class with the default cache size.
+     * @param x X coordinates of the nodes.
+     * @param y Y coordinates of the nodes.
+     * @param size Number of nodes.
+     */
+    public TOPTWLazyDistanceMatrix(double[] x, double[] y, int size) {
+        this(x, y, size, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param x X coordinates of the nodes.
+     * @param y Y coordinates of the nodes.
+     * @param size Number of nodes.
+     * @param cacheSize Maximum number of cached pairs, rounded up to a power of two.
+     */
+    public TOPTWLazyDistanceMatrix(double[] x, double[] y, int size, int cacheSize) {
+        this.size = size;
+        this.x = x;
+        this.y = y;
+        int capacity = Integer.highestOneBit(Math.max(cacheSize - 1, 1)) << 1;
+        this.keys = new long[capacity];
+        this.distances = new double[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @brief Method to get the distance between two nodes.
+     * @param i
+     * @param j
+     * @return The distance.
+     */
+    @Override
+    public double get(int i, int j) {
+        if (i == j) {
+            return 0.0;
+        }
+        int a = Math.min(i, j);
+        int b = Math.max(i, j);
+        int slot = (a * 0x9E3779B1 + b) * 0x85EBCA6B;
+        slot = (slot ^ (slot >>> 16)) & this.mask;
+        // a < b, así que la clave nunca es 0 y las casillas vacías no coinciden
+        long pair = ((long) a << 32) | b;
+        double distance = this.distances[slot];
+        if ((this.keys[slot] ^ Double.doubleToRawLongBits(distance)) == pair) {
+            return distance;
+        }
+        double diffXs = this.x[a] - this.x[b];
+        double diffYs = this.y[a] - this.y[b];
+        distance = Math.sqrt(diffXs * diffXs + diffYs * diffYs);
+        this.distances[slot] = distance;
+        this.keys[slot] = pair ^ Double.doubleToRawLongBits(distance);
+        return distance;
+    }
+
+    /**
+     * @brief Method to set the distance between two nodes.
+     * @details Distances are always computed from the coordinates, so this method does nothing.
+     * @param i
+     * @param j
+     * @param distance
+     */
+    @Override
+    public void set(int i, int j, double distance) {
+    }
+
+    /**
+     * @brief Method to get the number of nodes.
+     * @return The number of nodes.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,605 @@
+package top;
+
+/**
+ * @brief Class to improve a TOPTW solution with a local search over several neighborhoods.
+ * @details The moves work directly on the successor and predecessor arrays of the solution:
+ * intra-route 2-opt and or-opt, inter-route relocate and swap, and insertion or replacement
+ * of unvisited POIs. A move improves the solution if it raises the score, or keeps it and
+ * shortens the routes.
+ * @details Relocate, swap, insert and replace are evaluated in constant time with the arrival
+ * and slack data cached by the solution: the new times are only computed for the inserted
+ * node and the change is propagated to the rest of the route with the slack of its successor.
+ * 2-opt and or-opt reorder a whole segment, so the segment is walked once and only the part
+ * of the route after it uses the slack data.
+ */
+public class TOPTWLocalSearch implements TOPTWImprovementPhase {
+    /**
+     * @brief Neighborhoods explored by the local search.
+     */
+    public enum Neighborhood {
+        /** Insertion of an unvisited POI. */
+        INSERT_UNVISITED,
+        /** Replacement of a visited POI with an unvisited one of higher score. */
+        REPLACE_UNVISITED,
+        /** Move of a POI to another route. */
+        RELOCATE,
+        /** Exchange of two POIs of different routes. */
+        SWAP,
+        /** Reversal of a segment of a route. */
+        TWO_OPT,
+        /** Move of a segment of up to three POIs inside its route. */
+        OR_OPT
+    }
+
+    /**
+     * @brief Policy to choose the move applied in a neighborhood.
+     */
+    public enum Policy {
+        /** The first improving move found is applied. */
+        FIRST_IMPROVEMENT,
+        /** The whole neighborhood is explored and the best move is applied. */
+        BEST_IMPROVEMENT
+    }
+
+    private static final double EPSILON = 1e-9;
+    private static final int NO_MOVE = 0;
+    private static final int INSERT = 1;
+    private static final int REPLACE = 2;
+    private static final int RELOCATE = 3;
+    private static final int SWAP = 4;
+    private static final int TWO_OPT = 5;
+    private static final int OR_OPT = 6;
+    private static final int MAX_SEGMENT_LENGTH = 3;
+
+    private final Policy policy;
+    private long evaluatedMoves;
+    private long appliedMoves;
+
+    // mejor movimiento encontrado en el vecindario actual
+    private int moveType;
+    private int moveFirst;
+    private int moveSecond;
+    private int moveThird;
+    private double moveScoreDelta;
+    private double moveTimeDelta;
+
+    /**
+     * @brief Constructor of the class with the first improvement policy.
+     */
+    public TOPTWLocalSearch() {
+        this(Policy.FIRST_IMPROVEMENT);
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param policy Policy to choose the move applied in every neighborhood.
+     */
+    public TOPTWLocalSearch(Policy policy) {
+        this.policy = policy;
+        this.evaluatedMoves = 0;
+        this.appliedMoves = 0;
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+    }
+
+    /**
+     * @brief Method to create a local search with the same configuration and no counters.
+     * @details Every thread must use its own local search.
+     * @return The new local search.
+     */
+    @Override
+    public TOPTWLocalSearch copy() {
+        return new TOPTWLocalSearch(this.policy);
+    }
+
+    /**
+     * @brief Method to improve a solution until no neighborhood finds an improving move.
+     * @param solution Solution to improve, with the times of its routes up to date.
+     * @return True if the solution was improved, false otherwise.
+     */
+    @Override
+    public boolean improve(TOPTWSolution solution) {
+        boolean improved = false;
+        boolean improvedInPass;
+        do {
+            improvedInPass = false;
+            improvedInPass |= this.insertUnvisited(solution);
+            improvedInPass |= this.replaceUnvisited(solution);
+            improvedInPass |= this.relocate(solution);
+            improvedInPass |= this.swap(solution);
+            improvedInPass |= this.twoOpt(solution);
+            improvedInPass |= this.orOpt(solution);
+            improved |= improvedInPass;
+        } while(improvedInPass);
+        return improved;
+    }
+
+    /**
+     * @brief Method to apply a move of a neighborhood.
+     * @param neighborhood
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    public boolean explore(Neighborhood neighborhood, TOPTWSolution solution) {
+        switch(neighborhood) {
+            case INSERT_UNVISITED: return this.insertUnvisited(solution);
+            case REPLACE_UNVISITED: return this.replaceUnvisited(solution);
+            case RELOCATE: return this.relocate(solution);
+            case SWAP: return this.swap(solution);
+            case TWO_OPT: return this.twoOpt(solution);
+            case OR_OPT: return this.orOpt(solution);
+            default: throw new IllegalArgumentException("Unknown neighborhood: " + neighborhood);
+        }
+    }
+
+    /**
+     * @brief Method to insert an unvisited POI in a route.
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    public boolean insertUnvisited(TOPTWSolution solution) {
+        TOPTW problem = solution.getProblem();
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+        search:
+        for(int candidate = solution.nextUnvisited(1); candidate != -1; candidate = solution.nextUnvisited(candidate+1)) {
+            for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                int depot = solution.getIndexRoute(k);
+                int pre = depot, suc;
+                do {
+                    suc = solution.getSuccessor(pre);
+                    double shift = this.getInsertionShift(solution, candidate, pre, suc);
+                    if(!Double.isNaN(shift) && this.consider(INSERT, candidate, pre, -1, problem.getScore(candidate), solution.getChangeAtRouteEnd(suc, shift))) {
+                        break search;
+                    }
+                    pre = suc;
+                } while(suc != depot);
+            }
+        }
+        return this.applyMove(solution);
+    }
+
+    /**
+     * @brief Method to insert an unvisited POI in the feasible position that delays its route the least.
+     * @details It is not a move of the local search, so the counters are not updated.
+     * @param solution
+     * @param candidate Unvisited POI.
+     * @return True if the POI was inserted, false if no position is feasible.
+     */
+    public boolean insertBest(TOPTWSolution solution, int candidate) {
+        int bestPre = -1;
+        double bestDelta = Double.MAX_VALUE;
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            int pre = depot, suc;
+            do {
+                suc = solution.getSuccessor(pre);
+                double shift = this.getInsertionShift(solution, candidate, pre, suc);
+                if(!Double.isNaN(shift)) {
+                    double delta = solution.getChangeAtRouteEnd(suc, shift);
+                    if(delta < bestDelta) {
+                        bestDelta = delta;
+                        bestPre = pre;
+                    }
+                }
+                pre = suc;
+            } while(suc != depot);
+        }
+        if(bestPre == -1) {
+            return false;
+        }
+        int route = solution.getRouteOf(bestPre);
+        solution.insertAfter(candidate, bestPre);
+        solution.updateRouteTimes(route);
+        return true;
+    }
+
+    /**
+     * @brief Method to replace a visited POI with an unvisited one of higher score.
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    public boolean replaceUnvisited(TOPTWSolution solution) {
+        TOPTW problem = solution.getProblem();
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+        search:
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            for(int node = solution.getSuccessor(depot); node != depot; node = solution.getSuccessor(node)) {
+                if(problem.getScore(node) >= problem.getMaxScore()) { continue; }
+                int pre = solution.getPredecessor(node), suc = solution.getSuccessor(node);
+                for(int candidate = solution.nextUnvisited(1); candidate != -1; candidate = solution.nextUnvisited(candidate+1)) {
+                    double scoreDelta = problem.getScore(candidate) - problem.getScore(node);
+                    if(scoreDelta <= 0.0) { continue; }
+                    double shift = this.getInsertionShift(solution, candidate, pre, suc);
+                    if(!Double.isNaN(shift) && this.consider(REPLACE, node, candidate, -1, scoreDelta, solution.getChangeAtRouteEnd(suc, shift))) {
+                        break search;
+                    }
+                }
+            }
+        }
+        return this.applyMove(solution);
+    }
+
+    /**
+     * @brief Method to move a POI to another route.
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    public boolean relocate(TOPTWSolution solution) {
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+        search:
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            for(int node = solution.getSuccessor(depot); node != depot; node = solution.getSuccessor(node)) {
+                int preNode = solution.getPredecessor(node), sucNode = solution.getSuccessor(node);
+                double removalShift = this.getShift(solution, solution.getDepartureTime(preNode), preNode, sucNode);
+                if(Double.isNaN(removalShift)) { continue; }
+                double removalDelta = solution.getChangeAtRouteEnd(sucNode, removalShift);
+                for(int l = 0; l < solution.getCreatedRoutes(); l++) {
+                    if(l == k) { continue; }
+                    int otherDepot = solution.getIndexRoute(l);
+                    int pre = otherDepot, suc;
+                    do {
+                        suc = solution.getSuccessor(pre);
+                        double shift = this.getInsertionShift(solution, node, pre, suc);
+                        if(!Double.isNaN(shift) && this.consider(RELOCATE, node, pre, -1, 0.0, removalDelta + solution.getChangeAtRouteEnd(suc, shift))) {
+                            break search;
+                        }
+                        pre = suc;
+                    } while(suc != otherDepot);
+                }
+            }
+        }
+        return this.applyMove(solution);
+    }
+
+    /**
+     * @brief Method to exchange two POIs of different routes.
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    public boolean swap(TOPTWSolution solution) {
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+        search:
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            for(int node = solution.getSuccessor(depot); node != depot; node = solution.getSuccessor(node)) {
+                int preNode = solution.getPredecessor(node), sucNode = solution.getSuccessor(node);
+                for(int l = k+1; l < solution.getCreatedRoutes(); l++) {
+                    int otherDepot = solution.getIndexRoute(l);
+                    for(int other = solution.getSuccessor(otherDepot); other != otherDepot; other = solution.getSuccessor(other)) {
+                        int preOther = solution.getPredecessor(other), sucOther = solution.getSuccessor(other);
+                        double shift = this.getInsertionShift(solution, other, preNode, sucNode);
+                        double otherShift = Double.isNaN(shift) ? Double.NaN : this.getInsertionShift(solution, node, preOther, sucOther);
+                        if(!Double.isNaN(otherShift) && this.consider(SWAP, node, other, -1, 0.0,
+                                solution.getChangeAtRouteEnd(sucNode, shift) + solution.getChangeAtRouteEnd(sucOther, otherShift))) {
+                            break search;
+                        }
+                    }
+                }
+            }
+        }
+        return this.applyMove(solution);
+    }
+
+    /**
+     * @brief Method to reverse a segment of a route.
+     * @details The reversed segment is walked backwards through the predecessors.
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    public boolean twoOpt(TOPTWSolution solution) {
+        TOPTW problem = solution.getProblem();
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+        search:
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            for(int first = solution.getSuccessor(depot); first != depot; first = solution.getSuccessor(first)) {
+                int pre = solution.getPredecessor(first);
+                for(int last = solution.getSuccessor(first); last != depot; last = solution.getSuccessor(last)) {
+                    int suc = solution.getSuccessor(last);
+                    // recorrido del segmento invertido: pre -> last -> ... -> first -> suc
+                    double departure = solution.getDepartureTime(pre);
+                    int previous = pre, node = last;
+                    while(true) {
+                        departure = this.visit(problem, departure, previous, node);
+                        if(Double.isNaN(departure) || node == first) { break; }
+                        previous = node;
+                        node = solution.getPredecessor(node);
+                    }
+                    double shift = this.getShift(solution, departure, first, suc);
+                    if(!Double.isNaN(shift) && this.consider(TWO_OPT, first, last, -1, 0.0, solution.getChangeAtRouteEnd(suc, shift))) {
+                        break search;
+                    }
+                }
+            }
+        }
+        return this.applyMove(solution);
+    }
+
+    /**
+     * @brief Method to move a segment of up to three POIs to another position of its route.
+     * @details Only the part of the route between the old and the new position is walked.
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    public boolean orOpt(TOPTWSolution solution) {
+        TOPTW problem = solution.getProblem();
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+        search:
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            for(int first = solution.getSuccessor(depot); first != depot; first = solution.getSuccessor(first)) {
+                int preFirst = solution.getPredecessor(first);
+                int last = first;
+                for(int length = 1; length <= TOPTWLocalSearch.MAX_SEGMENT_LENGTH && last != depot; length++, last = solution.getSuccessor(last)) {
+                    int sucLast = solution.getSuccessor(last);
+                    // nuevas posiciones antes del segmento: target -> first..last -> ... -> preFirst -> sucLast
+                    for(int target = depot; target != preFirst; target = solution.getSuccessor(target)) {
+                        double departure = this.visitSegment(solution, solution.getDepartureTime(target), target, first, last);
+                        int previous = last;
+                        for(int node = solution.getSuccessor(target); node != first && !Double.isNaN(departure); node = solution.getSuccessor(node)) {
+                            departure = this.visit(problem, departure, previous, node);
+                            previous = node;
+                        }
+                        double shift = this.getShift(solution, departure, previous, sucLast);
+                        if(!Double.isNaN(shift) && this.consider(OR_OPT, first, last, target, 0.0, solution.getChangeAtRouteEnd(sucLast, shift))) {
+                            break search;
+                        }
+                    }
+                    // nuevas posiciones después del segmento: preFirst -> sucLast -> ... -> target -> first..last -> sucTarget
+                    double departure = solution.getDepartureTime(preFirst);
+                    int previous = preFirst;
+                    for(int target = sucLast; target != depot && !Double.isNaN(departure); target = solution.getSuccessor(target)) {
+                        departure = this.visit(problem, departure, previous, target);
+                        previous = target;
+                        int sucTarget = solution.getSuccessor(target);
+                        double segmentDeparture = this.visitSegment(solution, departure, target, first, last);
+                        double shift = this.getShift(solution, segmentDeparture, last, sucTarget);
+                        if(!Double.isNaN(shift) && this.consider(OR_OPT, first, last, target, 0.0, solution.getChangeAtRouteEnd(sucTarget, shift))) {
+                            break search;
+                        }
+                    }
+                }
+            }
+        }
+        return this.applyMove(solution);
+    }
+
+    /**
+     * @brief Method to get the number of moves evaluated.
+     * @return The number of moves evaluated.
+     */
+    public long getEvaluatedMoves() {
+        return this.evaluatedMoves;
+    }
+
+    /**
+     * @brief Method to get the number of moves applied.
+     * @return The number of moves applied.
+     */
+    public long getAppliedMoves() {
+        return this.appliedMoves;
+    }
+
+    /**
+     * @brief Method to add the counters of another local search to this one.
+     * @param other Local search with the same configuration.
+     */
+    @Override
+    public void addCounters(TOPTWImprovementPhase other) {
+        TOPTWLocalSearch otherSearch = (TOPTWLocalSearch) other;
+        this.evaluatedMoves += otherSearch.evaluatedMoves;
+        this.appliedMoves += otherSearch.appliedMoves;
+    }
+
+    /**
+     * @brief Method to reset the counters of moves.
+     */
+    @Override
+    public void resetCounters() {
+        this.evaluatedMoves = 0;
+        this.appliedMoves = 0;
+    }
+
+    /**
+     * @brief Method to get the policy of the local search.
+     * @return The policy.
+     */
+    public Policy getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * @brief Method to register an evaluated move and keep it if it is the best one.
+     * @param type
+     * @param first
+     * @param second
+     * @param third
+     * @param scoreDelta Change of the score.
+     * @param timeDelta Change of the total time of the routes.
+     * @return True if the search of the neighborhood must stop, false otherwise.
+     */
+    private boolean consider(int type, int first, int second, int third, double scoreDelta, double timeDelta) {
+        this.evaluatedMoves++;
+        if(scoreDelta < 0.0 || (scoreDelta == 0.0 && timeDelta >= -TOPTWLocalSearch.EPSILON)) {
+            return false;
+        }
+        if(this.moveType == TOPTWLocalSearch.NO_MOVE || scoreDelta > this.moveScoreDelta
+                || (scoreDelta == this.moveScoreDelta && timeDelta < this.moveTimeDelta)) {
+            this.moveType = type;
+            this.moveFirst = first;
+            this.moveSecond = second;
+            this.moveThird = third;
+            this.moveScoreDelta = scoreDelta;
+            this.moveTimeDelta = timeDelta;
+        }
+        return this.policy == Policy.FIRST_IMPROVEMENT;
+    }
+
+    /**
+     * @brief Method to apply the move kept by the last neighborhood explored.
+     * @param solution
+     * @return True if a move was applied, false otherwise.
+     */
+    private boolean applyMove(TOPTWSolution solution) {
+        int route = -1, otherRoute = -1;
+        switch(this.moveType) {
+            case INSERT:
+                route = solution.getRouteOf(this.moveSecond);
+                solution.insertAfter(this.moveFirst, this.moveSecond);
+                break;
+            case REPLACE:
+                route = solution.getRouteOf(this.moveFirst);
+                int pre = solution.getPredecessor(this.moveFirst);
+                solution.removeCustomer(this.moveFirst);
+                solution.insertAfter(this.moveSecond, pre);
+                break;
+            case RELOCATE:
+                route = solution.getRouteOf(this.moveFirst);
+                otherRoute = solution.getRouteOf(this.moveSecond);
+                solution.removeCustomer(this.moveFirst);
+                solution.insertAfter(this.moveFirst, this.moveSecond);
+                break;
+            case SWAP:
+                route = solution.getRouteOf(this.moveFirst);
+                otherRoute = solution.getRouteOf(this.moveSecond);
+                int preFirst = solution.getPredecessor(this.moveFirst);
+                int preSecond = solution.getPredecessor(this.moveSecond);
+                solution.removeCustomer(this.moveFirst);
+                solution.removeCustomer(this.moveSecond);
+                solution.insertAfter(this.moveSecond, preFirst);
+                solution.insertAfter(this.moveFirst, preSecond);
+                break;
+            case TWO_OPT:
+                route = solution.getRouteOf(this.moveFirst);
+                this.reverse(solution, this.moveFirst, this.moveSecond);
+                break;
+            case OR_OPT:
+                route = solution.getRouteOf(this.moveFirst);
+                this.moveSegment(solution, this.moveFirst, this.moveSecond, this.moveThird);
+                break;
+            default:
+                return false;
+        }
+        solution.updateRouteTimes(route);
+        if(otherRoute != -1) {
+            solution.updateRouteTimes(otherRoute);
+        }
+        this.moveType = TOPTWLocalSearch.NO_MOVE;
+        this.appliedMoves++;
+        return true;
+    }
+
+    /**
+     * @brief Method to reverse the segment of a route between two nodes.
+     * @param solution
+     * @param first First node of the segment.
+     * @param last Last node of the segment.
+     */
+    private void reverse(TOPTWSolution solution, int first, int last) {
+        int pre = solution.getPredecessor(first);
+        int suc = solution.getSuccessor(last);
+        int node = first;
+        while(true) {
+            int next = solution.getSuccessor(node);
+            solution.setSuccessor(node, solution.getPredecessor(node));
+            solution.setPredecessor(node, next);
+            if(node == last) { break; }
+            node = next;
+        }
+        solution.setSuccessor(pre, last);
+        solution.setPredecessor(last, pre);
+        solution.setSuccessor(first, suc);
+        solution.setPredecessor(suc, first);
+    }
+
+    /**
+     * @brief Method to move a segment of a route after another node of the same route.
+     * @param solution
+     * @param first First node of the segment.
+     * @param last Last node of the segment.
+     * @param target Node after which the segment is placed.
+     */
+    private void moveSegment(TOPTWSolution solution, int first, int last, int target) {
+        int pre = solution.getPredecessor(first);
+        int suc = solution.getSuccessor(last);
+        solution.setSuccessor(pre, suc);
+        solution.setPredecessor(suc, pre);
+        int sucTarget = solution.getSuccessor(target);
+        solution.setSuccessor(target, first);
+        solution.setPredecessor(first, target);
+        solution.setSuccessor(last, sucTarget);
+        solution.setPredecessor(sucTarget, last);
+    }
+
+    /**
+     * @brief Method to get the delay of the arrival at a node when a POI is visited just before it.
+     * @param solution
+     * @param candidate POI to visit.
+     * @param pre Node after which the POI is visited.
+     * @param suc Node before which the POI is visited.
+     * @return The delay of the arrival at suc, NaN if the move is not feasible.
+     */
+    private double getInsertionShift(TOPTWSolution solution, int candidate, int pre, int suc) {
+        double departure = this.visit(solution.getProblem(), solution.getDepartureTime(pre), pre, candidate);
+        return this.getShift(solution, departure, candidate, suc);
+    }
+
+    /**
+     * @brief Method to get the delay of the arrival at a node of the current route when it is reached from another node.
+     * @details The rest of the route keeps its order, so its feasibility is checked with the slack of the node.
+     * @param solution
+     * @param departure Departure from the previous node, NaN if it is not feasible.
+     * @param previous
+     * @param node
+     * @return The delay of the arrival at the node, NaN if the route is not feasible.
+     */
+    private double getShift(TOPTWSolution solution, double departure, int previous, int node) {
+        if(Double.isNaN(departure) || !solution.getProblem().isCompatible(previous, node)) {
+            return Double.NaN;
+        }
+        double shift = departure + solution.getDistance(previous, node) - solution.getArrivalTime(node);
+        return solution.isFeasibleShift(node, shift) ? shift : Double.NaN;
+    }
+
+    /**
+     * @brief Method to compute the departure from a node reached from another one.
+     * @param problem
+     * @param departure Departure from the previous node, NaN if it is not feasible.
+     * @param previous
+     * @param node
+     * @return The departure from the node, NaN if its time window or the maximum time is violated.
+     */
+    private double visit(TOPTW problem, double departure, int previous, int node) {
+        if(Double.isNaN(departure) || !problem.isCompatible(previous, node)) {
+            return Double.NaN;
+        }
+        double arrival = departure + problem.getDistance(previous, node);
+        if(!(arrival < problem.getDueTime(node))) {
+            return Double.NaN;
+        }
+        double start = arrival < problem.getReadyTime(node) ? problem.getReadyTime(node) : arrival;
+        double nodeDeparture = start + problem.getServiceTime(node);
+        return nodeDeparture > problem.getMaxTimePerRoute() ? Double.NaN : nodeDeparture;
+    }
+
+    /**
+     * @brief Method to compute the departure from the last node of a segment visited after another node.
+     * @param solution
+     * @param departure Departure from the previous node, NaN if it is not feasible.
+     * @param previous
+     * @param first First node of the segment.
+     * @param last Last node of the segment.
+     * @return The departure from the last node, NaN if the segment is not feasible.
+     */
+    private double visitSegment(TOPTWSolution solution, double departure, int previous, int first, int last) {
+        TOPTW problem = solution.getProblem();
+        int node = first;
+        while(true) {
+            departure = this.visit(problem, departure, previous, node);
+            if(Double.isNaN(departure) || node == last) { return departure; }
+            previous = node;
+            node = solution.getSuccessor(node);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package top;
+
+/**
+ * @brief Class to relink two TOPTW solutions.
+ * @details The path starts at the initial solution and moves toward the guiding one, one
+ * POI per step: the POI of highest score that the guide visits and the current solution
+ * does not is inserted in its cheapest feasible position, with the insertion of the local
+ * search. If none of them fits, the POI of lowest score that the current solution visits
+ * and the guide does not is removed to make room. Every step reduces the distance between
+ * the visited sets by one, so the path ends, and every solution on it is feasible.
+ * @details The best solution of the path, other than the initial one, is the result.
+ * The working solution and the candidate buffer are reused between calls.
+ */
+public class TOPTWPathRelinking {
+    private final TOPTWLocalSearch moves;
+    private final TOPTWEvaluator evaluator;
+    private TOPTWSolution work;
+    private int[] candidates;
+
+    /**
+     * @brief Constructor of the class.
+     */
+    public TOPTWPathRelinking() {
+        this(new TOPTWLocalSearch());
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param moves Local search that provides the insertion of the POIs.
+     */
+    public TOPTWPathRelinking(TOPTWLocalSearch moves) {
+        this.moves = moves;
+        this.evaluator = new TOPTWEvaluator();
+        this.work = null;
+        this.candidates = null;
+    }
+
+    /**
+     * @brief Method to walk from a solution toward another one.
+     * @param initial Solution where the path starts, it is not modified.
+     * @param guide Solution where the path ends, it is not modified.
+     * @param result Solution where the best solution of the path is copied.
+     * @return The fitness of the best solution of the path, -1 if the path is empty.
+     */
+    public double relink(TOPTWSolution initial, TOPTWSolution guide, TOPTWSolution result) {
+        TOPTW problem = initial.getProblem();
+        if(this.work == null || this.work.getProblem() != problem) {
+            this.work = new TOPTWSolution(problem);
+            this.candidates = new int[problem.getPOIs()];
+        }
+        this.work.copyFrom(initial);
+        double bestFitness = -1;
+        while(this.work.getVisitedDistance(guide) > 0) {
+            if(!this.insertFromGuide(guide) && !this.removeOutsideGuide(guide)) {
+                break;
+            }
+            double fitness = this.evaluator.evaluate(this.work);
+            if(fitness > bestFitness) {
+                bestFitness = fitness;
+                result.copyFrom(this.work);
+            }
+        }
+        return bestFitness;
+    }
+
+    /**
+     * @brief Method to insert the POI of highest score of the guide that fits in the working solution.
+     * @param guide
+     * @return True if a POI was inserted, false otherwise.
+     */
+    private boolean insertFromGuide(TOPTWSolution guide) {
+        TOPTW problem = this.work.getProblem();
+        int size = 0;
+        for(int c = this.work.nextUnvisited(1); c != -1; c = this.work.nextUnvisited(c+1)) {
+            if(guide.isVisited(c)) {
+                // ordenados por puntuación descendente, los empates por índice
+                double score = problem.getScore(c);
+                int pos = size++;
+                while(pos > 0 && problem.getScore(this.candidates[pos-1]) < score) {
+                    this.candidates[pos] = this.candidates[pos-1];
+                    pos--;
+                }
+                this.candidates[pos] = c;
+            }
+        }
+        for(int i = 0; i < size; i++) {
+            if(this.moves.insertBest(this.work, this.candidates[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @brief Method to remove the POI of lowest score of the working solution that the guide does not visit.
+     * @param guide
+     * @return True if a POI was removed, false otherwise.
+     */
+    private boolean removeOutsideGuide(TOPTWSolution guide) {
+        TOPTW problem = this.work.getProblem();
+        int worst = -1;
+        for(int c = 1; c <= problem.getPOIs(); c++) {
+            if(this.work.isVisited(c) && !guide.isVisited(c)
+                    && (worst == -1 || problem.getScore(c) < problem.getScore(worst))) {
+                worst = c;
+            }
+        }
+        if(worst == -1) {
+            return false;
+        }
+        int route = this.work.getRouteOf(worst);
+        this.work.removeCustomer(worst);
+        this.work.updateRouteTimes(route);
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package top;
+
+/**
+ * @brief Strategy that selects a random candidate of the RCL of lowest cost.
+ */
+public class TOPTWRandomSelection implements TOPTWSelectionStrategy {
+    /**
+     * @brief Method to select the candidate to insert.
+     * @details The alpha is not used.
+     * @param problem
+     * @param candidates
+     * @param maxSizeRCL
+     * @param alpha
+     * @param random
+     * @return The index of the selected candidate.
+     */
+    @Override
+    public int select(TOPTW problem, TOPTWCandidateList candidates, int maxSizeRCL, double alpha, TOPTWRandomSource random) {
+        int rclSize = candidates.buildRCL(maxSizeRCL);
+        return candidates.getRCL(random.nextInt(rclSize));
+    }
+}
@@ -0,0 +1,41 @@
+package top;
+
+/**
+ * @brief Interface of the random number generators used by the GRASP.
+ * @details Implementations are not thread-safe: every thread must use its own source,
+ * obtained with split().
+ */
+public interface TOPTWRandomSource {
+
+    /**
+     * @brief Method to restart the sequence of the generator from a seed.
+     * @param seed
+     */
+    void setSeed(long seed);
+
+    /**
+     * @brief Method to get a random integer between 0 (inclusive) and bound (exclusive).
+     * @param bound Upper bound, must be positive.
+     * @return The random integer.
+     */
+    int nextInt(int bound);
+
+    /**
+     * @brief Method to get a random long.
+     * @return The random long.
+     */
+    long nextLong();
+
+    /**
+     * @brief Method to get a random double between 0 (inclusive) and 1 (exclusive).
+     * @return The random double.
+     */
+    double nextDouble();
+
+    /**
+     * @brief Method to create a new generator with a statistically independent sequence.
+     * @details The state of this generator advances, so consecutive calls return different streams.
+     * @return The new generator.
+     */
+    TOPTWRandomSource split();
+}
@@ -1,14 +1,21 @@
 package top;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-
-import es.ull.esit.utilities.ExpositoUtilities;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
  * @brief Class to read a TOPTW problem from a file.
+ * @details The file is read through a FileChannel into a byte buffer and every line is
+ * split into numbers in place, so no String is created per line. Fields may be separated
+ * by any mix of spaces and tabs. The time window of a point is read from the last two
+ * fields of its line, which works for the depot row, for the rows of the Solomon
+ * instances and for the rows of the Cordeau instances, whose list of visit days varies
+ * in length.
  */
 public class TOPTWReader {
 
@@ -19,50 +26,177 @@ public class TOPTWReader {
      */
     public static TOPTW readProblem(String filePath) {
         TOPTW problem = null;
-        BufferedReader reader = null;
-        try {
-            File instaceFile = new File(filePath);
-            reader = new BufferedReader(new FileReader(instaceFile));
-            String line = reader.readLine();
-            line = ExpositoUtilities.simplifyString(line);
-            String[] parts =line.split(" ");
-            problem = new TOPTW(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]));
-            line = reader.readLine();
-            line = null; parts = null;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            Tokenizer tokenizer = new Tokenizer(channel);
+            tokenizer.readLine(3, filePath);
+            problem = new TOPTW((int) tokenizer.getField(2), (int) tokenizer.getField(1));
+            tokenizer.readLine(0, filePath);
             for (int i = 0; i < problem.getPOIs()+1; i++) {
-                line = reader.readLine();
-                line = ExpositoUtilities.simplifyString(line);
-                parts = line.split(" ");
-                problem.setX(i, Double.parseDouble(parts[1]));
-                problem.setY(i, Double.parseDouble(parts[2]));
-                problem.setServiceTime(i, Double.parseDouble(parts[3]));
-                problem.setScore(i, Double.parseDouble(parts[4]));
-                if(i==0) {
-                    problem.setReadyTime(i, Double.parseDouble(parts[7]));
-                    problem.setDueTime(i, Double.parseDouble(parts[8]));
-                }
-                else {
-                    problem.setReadyTime(i, Double.parseDouble(parts[8]));
-                    problem.setDueTime(i, Double.parseDouble(parts[9]));                    
-                }
-                line = null; parts = null;
+                int fields = tokenizer.readLine(7, filePath);
+                problem.setX(i, tokenizer.getField(1));
+                problem.setY(i, tokenizer.getField(2));
+                problem.setServiceTime(i, tokenizer.getField(3));
+                problem.setScore(i, tokenizer.getField(4));
+                problem.setReadyTime(i, tokenizer.getField(fields-2));
+                problem.setDueTime(i, tokenizer.getField(fields-1));
             }
             problem.calculateDistanceMatrix();
+            problem.calculateCompatibilityMatrix();
+            problem.calculateScoreStatistics();
         } catch (IOException e) {
             System.err.println(e);
             System.exit(0);
-        } finally {
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException ex) {
-                    System.err.println(ex);
-                    System.exit(0);
-                }
-            }
         }
         problem.setMaxTimePerRoute(problem.getDueTime(0));
         return problem;
     }
-    
+
+    /**
+     * @brief Tokenizer that reads the numbers of a file line by line from a byte buffer.
+     * @details Numbers with at most 15 digits and no exponent, which are all the numbers of
+     * the instances, are converted as an integer mantissa divided by a power of ten. Both are
+     * exact doubles, so the division is correctly rounded and gives the same double as
+     * Double.parseDouble. Any other number falls back to Double.parseDouble.
+     */
+    private static final class Tokenizer {
+        private static final int BUFFER_SIZE = 1 << 16;
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private boolean endOfFile;
+        private double[] fields;
+        private byte[] token;
+        private int lineNumber;
+
+        /**
+         * @brief Constructor of the class.
+         * @param channel Channel of the file.
+         */
+        Tokenizer(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(Tokenizer.BUFFER_SIZE);
+            this.buffer.flip();
+            this.endOfFile = false;
+            this.fields = new double[16];
+            this.token = new byte[32];
+            this.lineNumber = 0;
+        }
+
+        /**
+         * @brief Method to read the numbers of the next line that is not blank.
+         * @param minFields Minimum number of fields of the line.
+         * @param filePath Path of the file, for the error messages.
+         * @return The number of fields of the line.
+         * @throws IOException
+         */
+        int readLine(int minFields, String filePath) throws IOException {
+            int count = 0;
+            int line = this.lineNumber + 1;
+            int b = this.nextByte();
+            while (b != -1) {
+                if (b == '\n') {
+                    this.lineNumber++;
+                    if (count > 0) {
+                        break;
+                    }
+                } else if (b > ' ') {
+                    if (count == 0) {
+                        line = this.lineNumber + 1;
+                    }
+                    int length = 0;
+                    while (b > ' ') {
+                        if (length == this.token.length) {
+                            this.token = Arrays.copyOf(this.token, 2*length);
+                        }
+                        this.token[length++] = (byte) b;
+                        b = this.nextByte();
+                    }
+                    if (count == this.fields.length) {
+                        this.fields = Arrays.copyOf(this.fields, 2*count);
+                    }
+                    this.fields[count++] = this.parseToken(length);
+                    continue;
+                }
+                b = this.nextByte();
+            }
+            if (count < Math.max(minFields, 1)) {
+                throw new IllegalArgumentException("Line " + line + " of " + filePath
+                        + " has " + count + " fields, at least " + Math.max(minFields, 1) + " expected");
+            }
+            return count;
+        }
+
+        /**
+         * @brief Method to get a field of the last line read.
+         * @param index
+         * @return The value of the field.
+         */
+        double getField(int index) {
+            return this.fields[index];
+        }
+
+        /**
+         * @brief Method to convert the bytes of a token to a double.
+         * @param length Number of bytes of the token.
+         * @return The value of the token.
+         */
+        private double parseToken(int length) {
+            int i = 0;
+            boolean negative = false;
+            if (this.token[0] == '-' || this.token[0] == '+') {
+                negative = this.token[0] == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0, decimals = 0;
+            boolean point = false;
+            for (; i < length; i++) {
+                byte c = this.token[i];
+                if (c >= '0' && c <= '9') {
+                    mantissa = 10*mantissa + (c - '0');
+                    digits++;
+                    if (point) {
+                        decimals++;
+                    }
+                } else if (c == '.' && !point) {
+                    point = true;
+                } else {
+                    break;
+                }
+            }
+            if (i == length && digits > 0 && digits <= 15) {
+                double value = mantissa / Tokenizer.POWERS_OF_TEN[decimals];
+                return negative ? -value : value;
+            }
+            return Double.parseDouble(new String(this.token, 0, length, StandardCharsets.US_ASCII));
+        }
+
+        /**
+         * @brief Method to read the next byte of the file.
+         * @return The byte, -1 at the end of the file.
+         * @throws IOException
+         */
+        private int nextByte() throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                if (this.endOfFile) {
+                    return -1;
+                }
+                this.buffer.clear();
+                int read;
+                do {
+                    read = this.channel.read(this.buffer);
+                } while (read == 0);
+                this.buffer.flip();
+                if (read == -1) {
+                    this.endOfFile = true;
+                    return -1;
+                }
+            }
+            return this.buffer.get() & 0xFF;
+        }
+    }
 }
@@ -0,0 +1,242 @@
+package top;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import es.ull.esit.utilities.ExpositoUtilities;
+
+/**
+ * @brief Class to write the reports of GRASP runs to an Appendable.
+ * @details The verbosity selects what is written: nothing, the summary of every run,
+ * also every solution that improves the best one, or every solution built. The solutions
+ * are written with the same text as getInfoSolution, streamed line by line from a reused
+ * buffer with the cached formatters of ExpositoUtilities, so no report is built in memory.
+ */
+public class TOPTWReportWriter {
+    private static final int COLUMN_WIDTH = 15;
+    private static final String[] HEADERS = {"CUST NO.", "X COORD.", "Y. COORD.", "READY TIME", "DUE DATE", "ARRIVE TIME", " LEAVE TIME", "SERVICE TIME"};
+
+    /**
+     * @brief Amount of information written.
+     */
+    public enum Verbosity {
+        /** Nothing is written. */
+        NONE,
+        /** The average and best fitness of every run. */
+        SUMMARY,
+        /** The summary and every solution that improves the best one. */
+        IMPROVEMENT,
+        /** The summary and every solution built. */
+        FULL
+    }
+
+    private final Appendable out;
+    private Verbosity verbosity;
+    private final TOPTWEvaluator evaluator;
+    private final StringBuilder line;
+    private final StringBuilder cell;
+    private char[] chars;
+
+    // últimas celdas de tiempo escritas: getInfoSolution las repite en los nodos no servidos
+    private double arriveTime;
+    private double leaveTime;
+    private double serviceTime;
+    private boolean depotTimes;
+
+    /**
+     * @brief Constructor of the class.
+     * @param out Destination of the reports.
+     * @param verbosity
+     */
+    public TOPTWReportWriter(Appendable out, Verbosity verbosity) {
+        this.out = out;
+        this.verbosity = verbosity;
+        this.evaluator = new TOPTWEvaluator();
+        this.line = new StringBuilder();
+        this.cell = new StringBuilder();
+        this.chars = new char[256];
+    }
+
+    /**
+     * @brief Method to report a solution built by an iteration.
+     * @param solution
+     * @param improved True if the solution improves the best one.
+     */
+    public void iteration(TOPTWSolution solution, boolean improved) {
+        if(this.verbosity == Verbosity.FULL || (this.verbosity == Verbosity.IMPROVEMENT && improved)) {
+            this.writeSolution(solution);
+            this.line.append(System.lineSeparator());
+            this.flushLine();
+        }
+    }
+
+    /**
+     * @brief Method to report the end of a run.
+     * @param averageFitness
+     * @param bestFitness
+     */
+    public void summary(double averageFitness, double bestFitness) {
+        if(this.verbosity != Verbosity.NONE) {
+            this.line.append(" --> MEDIA: ").append(averageFitness).append(System.lineSeparator());
+            this.line.append(" --> MEJOR SOLUCION: ").append(bestFitness).append(System.lineSeparator());
+            this.flushLine();
+        }
+    }
+
+    /**
+     * @brief Method to write a solution with the text of getInfoSolution.
+     * @details The verbosity is not checked.
+     * @param solution
+     */
+    public void writeSolution(TOPTWSolution solution) {
+        TOPTW problem = solution.getProblem();
+        this.evaluator.evaluate(solution);
+        this.line.append("\n").append("SOLUTION: ").append("\n");
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            int pre = depot, suc;
+            do {
+                suc = solution.getSuccessor(pre);
+                this.line.append(pre).append(" - ");
+                pre = suc;
+            } while(suc != depot);
+            this.line.append(suc).append("\n");
+            this.flushLine();
+        }
+        this.line.append("FEASIBLE SOLUTION: ").append(this.evaluator.isFeasible()).append("\n")
+                .append("SCORE: ").append(this.evaluator.getScore()).append("\n")
+                .append("TIME COST: ").append(this.evaluator.getTimeCost()).append("\n");
+        this.line.append("\n").append("NODES: ").append(problem.getPOIs()).append("\n")
+                .append("MAX TIME PER ROUTE: ").append(problem.getMaxTimePerRoute()).append("\n")
+                .append("MAX NUMBER OF ROUTES: ").append(problem.getMaxRoutes()).append("\n");
+        this.flushLine();
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            this.writeRoute(solution, k);
+        }
+    }
+
+    /**
+     * @brief Method to write the table of a route.
+     * @param solution
+     * @param k Index of the route.
+     */
+    private void writeRoute(TOPTWSolution solution, int k) {
+        TOPTW problem = solution.getProblem();
+        this.cell.setLength(0);
+        this.cell.append("\n").append("ROUTE ").append(k);
+        this.appendCell();
+        this.line.append("\n");
+        for(String header : TOPTWReportWriter.HEADERS) {
+            this.cell.setLength(0);
+            this.cell.append(header);
+            this.appendCell();
+        }
+        this.line.append("\n");
+        int depot = solution.getIndexRoute(k);
+        this.arriveTime = 0;
+        this.leaveTime = 0;
+        this.serviceTime = problem.getServiceTime(depot);
+        this.depotTimes = true;
+        this.appendNode(problem, depot);
+        double time = 0.0;
+        int pre = depot, suc;
+        do {
+            suc = solution.getSuccessor(pre);
+            time += solution.getDistance(pre, suc);
+            if(time < problem.getDueTime(suc)) {
+                if(time < problem.getReadyTime(suc)) {
+                    time = problem.getReadyTime(suc);
+                }
+                this.arriveTime = time;
+                time += problem.getServiceTime(suc);
+                this.leaveTime = time;
+                this.serviceTime = problem.getServiceTime(pre);
+                this.depotTimes = false;
+            }
+            this.appendNode(problem, suc);
+            pre = suc;
+        } while(suc != depot);
+        this.flushLine();
+    }
+
+    /**
+     * @brief Method to append the row of a node of a route.
+     * @param problem
+     * @param node
+     */
+    private void appendNode(TOPTW problem, int node) {
+        this.cell.setLength(0);
+        this.cell.append(node);
+        this.appendCell();
+        this.appendNumber(problem.getX(node));
+        this.appendNumber(problem.getY(node));
+        this.appendNumber(problem.getReadyTime(node));
+        this.appendNumber(problem.getDueTime(node));
+        if(this.depotTimes) {
+            this.cell.setLength(0);
+            this.cell.append(0);
+            this.appendCell();
+            this.appendCell();
+        } else {
+            this.appendNumber(this.arriveTime);
+            this.appendNumber(this.leaveTime);
+        }
+        this.appendNumber(this.serviceTime);
+        this.line.append("\n");
+    }
+
+    /**
+     * @brief Method to append a decimal number as a cell.
+     * @param value
+     */
+    private void appendNumber(double value) {
+        this.cell.setLength(0);
+        ExpositoUtilities.appendFormat(this.cell, value, 3);
+        this.appendCell();
+    }
+
+    /**
+     * @brief Method to append the cell buffer aligned to the right.
+     */
+    private void appendCell() {
+        ExpositoUtilities.appendFormat(this.line, this.cell, TOPTWReportWriter.COLUMN_WIDTH, ExpositoUtilities.ALIGNMENT_RIGHT);
+    }
+
+    /**
+     * @brief Method to write the line buffer to the destination and empty it.
+     */
+    private void flushLine() {
+        try {
+            if(this.out instanceof Writer) {
+                int length = this.line.length();
+                if(this.chars.length < length) {
+                    this.chars = new char[Math.max(length, 2*this.chars.length)];
+                }
+                this.line.getChars(0, length, this.chars, 0);
+                ((Writer) this.out).write(this.chars, 0, length);
+            } else {
+                this.out.append(this.line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.line.setLength(0);
+    }
+
+    /**
+     * @brief Method to get the verbosity.
+     * @return The verbosity.
+     */
+    public Verbosity getVerbosity() {
+        return this.verbosity;
+    }
+
+    /**
+     * @brief Method to set the verbosity.
+     * @param verbosity
+     */
+    public void setVerbosity(Verbosity verbosity) {
+        this.verbosity = verbosity;
+    }
+}
@@ -0,0 +1,73 @@
+package top;
+
+import java.util.Arrays;
+
+/**
+ * @brief Bounded set of the solutions already seen by GRASP, with their fitness.
+ * @details Solutions are identified by their fingerprint. The set is a direct-mapped table:
+ * each fingerprint has a single slot and a new solution evicts the one stored there,
+ * so memory stays fixed however long the run is.
+ */
+public class TOPTWSeenSolutions {
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+    private final long[] fingerprints;
+    private final double[] fitnesses;
+    private final int mask;
+
+    /**
+     * @brief Constructor of the class.
+     * @param capacity Maximum number of solutions, rounded up to a power of two.
+     */
+    public TOPTWSeenSolutions(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.fingerprints = new long[size];
+        this.fitnesses = new double[size];
+        this.mask = size - 1;
+        this.clear();
+    }
+
+    /**
+     * @brief Method to get the fitness of a solution already seen.
+     * @param fingerprint Fingerprint of the solution.
+     * @return The fitness, NaN if the solution is not in the set.
+     */
+    public double get(long fingerprint) {
+        int slot = this.slot(fingerprint);
+        return this.fingerprints[slot] == fingerprint ? this.fitnesses[slot] : Double.NaN;
+    }
+
+    /**
+     * @brief Method to add a solution.
+     * @param fingerprint Fingerprint of the solution.
+     * @param fitness
+     */
+    public void put(long fingerprint, double fitness) {
+        int slot = this.slot(fingerprint);
+        this.fingerprints[slot] = fingerprint;
+        this.fitnesses[slot] = fitness;
+    }
+
+    /**
+     * @brief Method to remove all the solutions.
+     */
+    public void clear() {
+        Arrays.fill(this.fitnesses, Double.NaN);
+    }
+
+    /**
+     * @brief Method to get the number of slots of the set.
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.fingerprints.length;
+    }
+
+    /**
+     * @brief Method to get the slot of a fingerprint.
+     * @param fingerprint
+     * @return The slot.
+     */
+    private int slot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & this.mask;
+    }
+}
@@ -0,0 +1,35 @@
+package top;
+
+/**
+ * @brief Interface of the strategies to select the candidate inserted in every step of the greedy construction.
+ * @details The strategies work on the primitive buffers of the candidate list and must not keep
+ * state between calls, because the workers of a parallel run share them.
+ */
+public interface TOPTWSelectionStrategy {
+    /**
+     * @brief Method to select the candidate to insert.
+     * @param problem
+     * @param candidates Candidate list with at least one candidate.
+     * @param maxSizeRCL Maximum size of the RCL.
+     * @param alpha Parameter of the strategy, ignored by the strategies that do not use it.
+     * @param random Random source of the construction.
+     * @return The index of the selected candidate.
+     */
+    int select(TOPTW problem, TOPTWCandidateList candidates, int maxSizeRCL, double alpha, TOPTWRandomSource random);
+
+    /**
+     * @brief Method to get a strategy from its name.
+     * @param name One of random, fuzzy-best, alpha-cut, value or bias.
+     * @return The strategy.
+     */
+    static TOPTWSelectionStrategy forName(String name) {
+        switch(name) {
+            case "random": return new TOPTWRandomSelection();
+            case "fuzzy-best": return new TOPTWFuzzyBestSelection();
+            case "alpha-cut": return new TOPTWFuzzyAlphaCutSelection();
+            case "value": return new TOPTWValueBasedSelection();
+            case "bias": return new TOPTWBiasedSelection();
+            default: throw new IllegalArgumentException("Unknown selection strategy: " + name);
+        }
+    }
+}
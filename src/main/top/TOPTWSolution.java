@@ -2,8 +2,6 @@ package top;
 
 import java.util.Arrays;
 
-import es.ull.esit.utilities.ExpositoUtilities;
-
 /**
  * @brief Class to represent a solution for the TOPTW problem.
  */
@@ -12,10 +10,22 @@ public class TOPTWSolution {
     private TOPTW problem;
     private int[] predecessors;
     private int[] successors;
+    private double[] arrivalTime;
+    private double[] departureTime;
     private double[] waitingTime;
+    private double[] waitingTimeUntilEnd;
+    private double[] maxShift;
+    private double[] maxShiftBeforeDue;
+    private double[] maxAdvance;
     private int[] positionInRoute;
+    private int[] routeOfNode;
+    private long[] unvisited;
+    private int unvisitedCount;
+    private long fingerprint;
     
     private int[] routes;
+    private long[] routeVersions;
+    private long lastRouteVersion;
     private int availableVehicles;
     private double objectiveFunctionValue;
 
@@ -28,16 +38,72 @@ public class TOPTWSolution {
         this.availableVehicles = this.problem.getVehicles();
         this.predecessors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
         this.successors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        this.waitingTime = new double[this.problem.getPOIs()];
-        this.positionInRoute = new int[this.problem.getPOIs()];
+        this.arrivalTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.departureTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.waitingTime = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.waitingTimeUntilEnd = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.maxShift = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.maxShiftBeforeDue = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.maxAdvance = new double[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.positionInRoute = new int[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.routeOfNode = new int[this.problem.getPOIs()+this.problem.getVehicles()];
+        this.unvisited = new long[(this.problem.getPOIs() >>> 6) + 1];
         Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
         Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
-        Arrays.fill(this.waitingTime, TOPTWSolution.NO_INITIALIZED);
-        Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
+        this.resetTimes();
+        this.resetUnvisited();
         this.routes = new int[this.problem.getVehicles()];
+        this.routeVersions = new long[this.problem.getVehicles()];
+        this.lastRouteVersion = 0;
+        this.fingerprint = 0L;
         this.objectiveFunctionValue = TOPTWEvaluator.NO_EVALUATED;
     }
 
+    /**
+     * @brief Copy constructor of the class.
+     * @details The copy shares the problem but owns its own arrays, so it can be kept
+     * as a snapshot while the original solution keeps changing.
+     * @param other Solution to copy.
+     */
+    public TOPTWSolution(TOPTWSolution other) {
+        this(other.problem);
+        this.copyFrom(other);
+    }
+
+    /**
+     * @brief Method to copy another solution of the same problem into this one.
+     * @details The arrays of this solution are reused, so nothing is allocated. It can be used
+     * to keep the best solution of a search or to restore a solution after trying some moves.
+     * @details The route versions are not copied: every route gets a new version of this
+     * solution, so the values cached for the previous routes of this solution become stale.
+     * @param other Solution to copy.
+     */
+    public void copyFrom(TOPTWSolution other) {
+        if(other.problem != this.problem) {
+            throw new IllegalArgumentException("The solutions belong to different problems");
+        }
+        System.arraycopy(other.predecessors, 0, this.predecessors, 0, this.predecessors.length);
+        System.arraycopy(other.successors, 0, this.successors, 0, this.successors.length);
+        System.arraycopy(other.arrivalTime, 0, this.arrivalTime, 0, this.arrivalTime.length);
+        System.arraycopy(other.departureTime, 0, this.departureTime, 0, this.departureTime.length);
+        System.arraycopy(other.waitingTime, 0, this.waitingTime, 0, this.waitingTime.length);
+        System.arraycopy(other.waitingTimeUntilEnd, 0, this.waitingTimeUntilEnd, 0, this.waitingTimeUntilEnd.length);
+        System.arraycopy(other.maxShift, 0, this.maxShift, 0, this.maxShift.length);
+        System.arraycopy(other.maxShiftBeforeDue, 0, this.maxShiftBeforeDue, 0, this.maxShiftBeforeDue.length);
+        System.arraycopy(other.maxAdvance, 0, this.maxAdvance, 0, this.maxAdvance.length);
+        System.arraycopy(other.positionInRoute, 0, this.positionInRoute, 0, this.positionInRoute.length);
+        System.arraycopy(other.routeOfNode, 0, this.routeOfNode, 0, this.routeOfNode.length);
+        System.arraycopy(other.unvisited, 0, this.unvisited, 0, this.unvisited.length);
+        System.arraycopy(other.routes, 0, this.routes, 0, this.routes.length);
+        this.unvisitedCount = other.unvisitedCount;
+        this.fingerprint = other.fingerprint;
+        this.availableVehicles = other.availableVehicles;
+        this.objectiveFunctionValue = other.objectiveFunctionValue;
+        for(int k = 0; k < this.routeVersions.length; k++) {
+            this.routeVersions[k] = ++this.lastRouteVersion;
+        }
+    }
+
     /**
      * @brief Method to initialize the solution.
      * @details The solution is initialized with the depot as the first node of the first route.
@@ -47,40 +113,289 @@ public class TOPTWSolution {
      * @details The objective function value is initialized with -1.
      * @details The waiting time array is initialized with -1.
      * @details The position in route array is initialized with -1.
+     * @details The times of the first route are computed.
+     * @details The arrays are reset in place, so nothing is allocated.
      */
     public void initSolution() {
-        this.predecessors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
-        this.successors = new int[this.problem.getPOIs()+this.problem.getVehicles()];
         Arrays.fill(this.predecessors, TOPTWSolution.NO_INITIALIZED);
         Arrays.fill(this.successors, TOPTWSolution.NO_INITIALIZED);
-        this.routes = new int[this.problem.getVehicles()];
+        this.fingerprint = 0L;
         Arrays.fill(this.routes, TOPTWSolution.NO_INITIALIZED);
         this.routes[0] = 0;
         this.predecessors[0] = 0;
-        this.successors[0] = 0;
+        this.link(0, 0);
         this.availableVehicles = this.problem.getVehicles() - 1;
+        this.resetTimes();
+        this.resetUnvisited();
+        this.updateRouteTimes(0);
+    }
+
+    /**
+     * @brief Method to mark every POI as unvisited.
+     */
+    private void resetUnvisited() {
+        Arrays.fill(this.unvisited, 0L);
+        for(int c = 1; c <= this.problem.getPOIs(); c++) {
+            this.unvisited[c >>> 6] |= 1L << c;
+        }
+        this.unvisitedCount = this.problem.getPOIs();
+    }
+
+    /**
+     * @brief Method to reset the time information of every node to -1.
+     */
+    private void resetTimes() {
+        Arrays.fill(this.arrivalTime, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.departureTime, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.waitingTime, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.waitingTimeUntilEnd, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.maxShift, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.maxShiftBeforeDue, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.maxAdvance, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.positionInRoute, TOPTWSolution.NO_INITIALIZED);
+        Arrays.fill(this.routeOfNode, TOPTWSolution.NO_INITIALIZED);
+    }
+
+    /**
+     * @brief Method to update the time information of the nodes of a route.
+     * @details A forward pass computes the arrival, departure, waiting time and position of every
+     * node, leaving the depot at time 0. The departure of the depot is the start of the route and
+     * the rest of its values refer to the return to it. Node ids are unique across routes, so the
+     * times of all routes share the same arrays.
+     * @details A backward pass computes how much the arrival at every node can be delayed:
+     * the delay must be lower than maxShiftBeforeDue (arrivals strictly before the due time)
+     * and not greater than maxShift (departures within the maximum time per route).
+     * It also computes how much the start of service can be advanced from every node on,
+     * which bounds the gain at the end of the route when an arrival gets earlier.
+     * @details The route receives a new version, so values cached for it become stale.
+     * @param route Index of the route.
+     */
+    public void updateRouteTimes(int route) {
+        int depot = this.routes[route];
+        this.routeVersions[route] = ++this.lastRouteVersion;
+        double maxTime = this.problem.getMaxTimePerRoute();
+        double departure = 0.0;
+        int position = 0;
+        int pre = depot, suc = -1;
+        this.positionInRoute[depot] = position;
+        this.routeOfNode[depot] = route;
+        this.departureTime[depot] = departure;
+        do {
+            suc = this.successors[pre];
+            double arrival = departure + this.problem.getDistance(pre, suc);
+            double start = arrival;
+            if(start < this.problem.getReadyTime(suc)) {
+                start = this.problem.getReadyTime(suc);
+            }
+            departure = start + this.problem.getServiceTime(suc);
+            this.arrivalTime[suc] = arrival;
+            this.waitingTime[suc] = start - arrival;
+            this.maxShiftBeforeDue[suc] = this.problem.getDueTime(suc) - arrival;
+            this.maxShift[suc] = maxTime - departure;
+            this.maxAdvance[suc] = start - this.problem.getReadyTime(suc);
+            if(suc != depot) {
+                this.departureTime[suc] = departure;
+                this.positionInRoute[suc] = ++position;
+                this.routeOfNode[suc] = route;
+            }
+            pre = suc;
+        } while(suc != depot);
+
+        double shiftBeforeDue = Double.MAX_VALUE, shift = Double.MAX_VALUE, waiting = 0.0, advance = Double.MAX_VALUE;
+        int node = depot;
+        do {
+            waiting += this.waitingTime[node];
+            shiftBeforeDue = Math.min(this.maxShiftBeforeDue[node], shiftBeforeDue + this.waitingTime[node]);
+            shift = Math.min(this.maxShift[node], shift) + this.waitingTime[node];
+            advance = Math.min(this.maxAdvance[node], advance);
+            this.maxShiftBeforeDue[node] = shiftBeforeDue;
+            this.maxShift[node] = shift;
+            this.maxAdvance[node] = advance;
+            this.waitingTimeUntilEnd[node] = waiting;
+            node = this.predecessors[node];
+        } while(node != depot);
+    }
+
+    /**
+     * @brief Method to get the version of a route.
+     * @details The version changes every time the times of the route are updated and
+     * never repeats within the same solution.
+     * @param route Index of the route.
+     * @return The version of the route.
+     */
+    public long getRouteVersion(int route) {
+        return this.routeVersions[route];
+    }
+
+    /**
+     * @brief Method to know if the arrival at a node of a route can be delayed.
+     * @param node
+     * @param shift Delay of the arrival at the node.
+     * @return True if the route stays feasible, false otherwise.
+     */
+    public boolean isFeasibleShift(int node, double shift) {
+        return shift < this.maxShiftBeforeDue[node] && shift <= this.maxShift[node];
+    }
+
+    /**
+     * @brief Method to get the delay at the end of a route caused by delaying the arrival at a node.
+     * @details The delay is absorbed by the waiting times of the following nodes.
+     * @param node
+     * @param shift Delay of the arrival at the node.
+     * @return The delay of the return to the depot.
+     */
+    public double getShiftAtRouteEnd(int node, double shift) {
+        double remaining = shift - this.waitingTimeUntilEnd[node];
+        return remaining > 0.0 ? remaining : 0.0;
+    }
+
+    /**
+     * @brief Method to get the change of the end of a route caused by moving the arrival at a node.
+     * @details A delay is absorbed by the waiting times of the following nodes, and an
+     * advance stops at the first following node whose service already starts at its ready time.
+     * @param node
+     * @param shift Change of the arrival at the node, negative if it gets earlier.
+     * @return The change of the return to the depot, negative if the route gets shorter.
+     */
+    public double getChangeAtRouteEnd(int node, double shift) {
+        if(shift >= 0.0) {
+            return this.getShiftAtRouteEnd(node, shift);
+        }
+        return -Math.min(-shift, this.maxAdvance[node]);
+    }
+
+    /**
+     * @brief Method to get the route of a node.
+     * @param node
+     * @return The index of the route, -1 if the node is not visited.
+     */
+    public int getRouteOf(int node) {
+        return this.routeOfNode[node];
+    }
+
+    /**
+     * @brief Method to know if a POI is visited by a route.
+     * @param customer POI between 1 and the number of POIs.
+     * @return True if the POI is visited, false otherwise.
+     */
+    public boolean isVisited(int customer) {
+        return (this.unvisited[customer >>> 6] & (1L << customer)) == 0;
+    }
+
+    /**
+     * @brief Method to get the number of POIs not visited by any route.
+     * @return The number of unvisited POIs.
+     */
+    public int getUnvisitedCount() {
+        return this.unvisitedCount;
+    }
+
+    /**
+     * @brief Method to get the first unvisited POI from a given one.
+     * @details The unvisited POIs are kept in a bitset, so they can be traversed in
+     * ascending order with for(c = nextUnvisited(1); c != -1; c = nextUnvisited(c+1)).
+     * @param from First POI to check.
+     * @return The first unvisited POI not lower than from, -1 if there is none.
+     */
+    public int nextUnvisited(int from) {
+        int word = from >>> 6;
+        if(word >= this.unvisited.length) {
+            return -1;
+        }
+        long bits = this.unvisited[word] & (-1L << from);
+        while(bits == 0) {
+            if(++word == this.unvisited.length) {
+                return -1;
+            }
+            bits = this.unvisited[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @brief Method to get the distance between the sets of POIs visited by two solutions.
+     * @details The unvisited sets are bitsets, so the distance is the population count of their XOR.
+     * @param other Solution of the same problem.
+     * @return The number of POIs visited by only one of the solutions.
+     */
+    public int getVisitedDistance(TOPTWSolution other) {
+        int distance = 0;
+        for(int i = 0; i < this.unvisited.length; i++) {
+            distance += Long.bitCount(this.unvisited[i] ^ other.unvisited[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * @brief Method to insert a customer after a node of a route.
+     * @details Only the links are updated; the times of the route must be updated afterwards.
+     * @param customer
+     * @param predecessor
+     */
+    public void insertAfter(int customer, int predecessor) {
+        if(!this.isDepot(customer) && !this.isVisited(customer)) {
+            this.unvisited[customer >>> 6] &= ~(1L << customer);
+            this.unvisitedCount--;
+        }
+        int successor = this.successors[predecessor];
+        this.predecessors[customer] = predecessor;
+        this.link(customer, successor);
+        this.link(predecessor, customer);
+        this.predecessors[successor] = customer;
+    }
+
+    /**
+     * @brief Method to remove a customer from its route.
+     * @details Only the links are updated; the times of the route must be updated afterwards.
+     * @param customer
+     */
+    public void removeCustomer(int customer) {
+        int predecessor = this.predecessors[customer];
+        int successor = this.successors[customer];
+        this.link(predecessor, successor);
+        this.predecessors[successor] = predecessor;
+        this.predecessors[customer] = TOPTWSolution.NO_INITIALIZED;
+        this.link(customer, TOPTWSolution.NO_INITIALIZED);
+        this.routeOfNode[customer] = TOPTWSolution.NO_INITIALIZED;
+        this.positionInRoute[customer] = TOPTWSolution.NO_INITIALIZED;
+        if(!this.isDepot(customer) && this.isVisited(customer)) {
+            this.unvisited[customer >>> 6] |= 1L << customer;
+            this.unvisitedCount++;
+        }
+    }
+
+    /**
+     * @brief Method to get the time at which a route ends.
+     * @param route Index of the route.
+     * @return The departure time from the depot once the route is completed.
+     */
+    public double getRouteEndTime(int route) {
+        int depot = this.routes[route];
+        return this.arrivalTime[depot] + this.waitingTime[depot] + this.problem.getServiceTime(depot);
     }
 
     /**
      * @brief Method to know if a customer is a depot.
+     * @details Depots use a fixed range of ids: 0 for the first route and POIs+k for route k,
+     * so no search over the routes is needed.
      * @param c
      * @return True if the customer is a depot, false otherwise.
      */
     public boolean isDepot(int c) {
-        for(int i = 0; i < this.routes.length; i++) {
-            if(c==this.routes[i]) {
-                return true;
-            }
-        }
-        return false;
+        return c == 0 || c > this.problem.getPOIs();
     }
 
     /**
-     * @brief Method to know if a customer is a POI.
+     * @brief Method to know if two solutions have the same routes.
+     * @details Solutions with different fingerprints are rejected in O(1); otherwise the
+     * predecessors are compared.
      * @param otherSolution
-     * @return True if the customer is a POI, false otherwise.
+     * @return True if the solutions are equal, false otherwise.
      */
     public boolean equals(TOPTWSolution otherSolution) {
+        if (this.fingerprint != otherSolution.fingerprint) {
+            return false;
+        }
         for (int i = 0; i < this.predecessors.length; i++) {
             if (this.predecessors[i] != otherSolution.predecessors[i]) {
                 return false;
@@ -190,6 +505,25 @@ public class TOPTWSolution {
         return this.routes[index];
     }
 
+    /**
+     * @brief Method to get the arrival time.
+     * @param customer
+     * @return The arrival time.
+     */
+    public double getArrivalTime(int customer) {
+        return this.arrivalTime[customer];
+    }
+
+    /**
+     * @brief Method to get the departure time.
+     * @details The departure time of a depot is the start of its route.
+     * @param customer
+     * @return The departure time.
+     */
+    public double getDepartureTime(int customer) {
+        return this.departureTime[customer];
+    }
+
     /**
      * @brief Method to get the waiting time.
      * @param customer
@@ -199,6 +533,24 @@ public class TOPTWSolution {
         return this.waitingTime[customer];
     }
 
+    /**
+     * @brief Method to get the maximum delay of the arrival allowed by the maximum time per route.
+     * @param customer
+     * @return The maximum shift.
+     */
+    public double getMaxShift(int customer) {
+        return this.maxShift[customer];
+    }
+
+    /**
+     * @brief Method to get the bound of the delay of the arrival allowed by the due times.
+     * @param customer
+     * @return The maximum shift before the due times.
+     */
+    public double getMaxShiftBeforeDue(int customer) {
+        return this.maxShiftBeforeDue[customer];
+    }
+
     /**
      * @brief Method to set the predecessors.
      * @param predecessors
@@ -231,7 +583,49 @@ public class TOPTWSolution {
      * @param successor
      */
     public void setSuccessor(int customer, int succesor) {
-        this.successors[customer] = succesor;
+        this.link(customer, succesor);
+    }
+
+    /**
+     * @brief Method to change the successor of a node keeping the fingerprint up to date.
+     * @param node
+     * @param successor New successor, -1 to remove the arc.
+     */
+    private void link(int node, int successor) {
+        int previous = this.successors[node];
+        if(previous != TOPTWSolution.NO_INITIALIZED) {
+            this.fingerprint ^= TOPTWSolution.hashArc(node, previous);
+        }
+        if(successor != TOPTWSolution.NO_INITIALIZED) {
+            this.fingerprint ^= TOPTWSolution.hashArc(node, successor);
+        }
+        this.successors[node] = successor;
+    }
+
+    /**
+     * @brief Method to compute the random-looking key of an arc.
+     * @details A Zobrist table would need one key per pair of nodes, so the key is derived
+     * from the arc with the splitmix64 finalizer instead.
+     * @param node
+     * @param successor
+     * @return The key of the arc.
+     */
+    private static long hashArc(int node, int successor) {
+        long z = (((long) node << 32) | (successor & 0xFFFFFFFFL)) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @brief Method to get the fingerprint of the solution.
+     * @details The fingerprint is the XOR of the keys of all the arcs of the routes and is updated
+     * every time a successor changes, so it costs O(1). Equal solutions have the same fingerprint;
+     * different ones have the same fingerprint only in case of a 64-bit collision.
+     * @return The fingerprint.
+     */
+    public long getFingerprint() {
+        return this.fingerprint;
     }
 
     /**
@@ -239,7 +633,7 @@ public class TOPTWSolution {
      * @param customer
      * @param waitingTime
      */
-    public void setWaitingTime(int customer, int waitingTime) {
+    public void setWaitingTime(int customer, double waitingTime) {
         this.waitingTime[customer] = waitingTime;
     }
 
@@ -248,67 +642,9 @@ public class TOPTWSolution {
      * @return The info of the solution.
      */
     public String getInfoSolution() {
-        final int COLUMN_WIDTH = 15;
-        String text = "\n"+"NODES: " + this.problem.getPOIs() + "\n" + "MAX TIME PER ROUTE: " + this.problem.getMaxTimePerRoute() + "\n" + "MAX NUMBER OF ROUTES: " + this.problem.getMaxRoutes() + "\n";
-        String textSolution = "\n"+"SOLUTION: "+"\n";
-        double costTimeSolution = 0.0, fitnessScore = 0.0;
-        boolean validSolution = true;
-        for(int k = 0; k < this.getCreatedRoutes(); k++) { // rutas creadas
-            String[] strings = new String[]{"\n" + "ROUTE " + k };
-            int[] width = new int[strings.length];
-            Arrays.fill(width, COLUMN_WIDTH);
-            text += ExpositoUtilities.getFormat(strings, width) + "\n";
-            strings = new String[]{"CUST NO.", "X COORD.", "Y. COORD.", "READY TIME", "DUE DATE", "ARRIVE TIME", " LEAVE TIME", "SERVICE TIME"};
-            width = new int[strings.length];
-            Arrays.fill(width, COLUMN_WIDTH);
-            text += ExpositoUtilities.getFormat(strings, width) + "\n";
-            strings = new String[strings.length];
-            int depot = this.getIndexRoute(k);
-            int pre=-1, suc=-1;
-            double costTimeRoute = 0.0, fitnessScoreRoute = 0.0;
-            pre = depot;
-            int index = 0;
-            strings[index++] = "" + pre;
-            strings[index++] = "" + this.getProblem().getX(pre);
-            strings[index++] = "" + this.getProblem().getY(pre);
-            strings[index++] = "" + this.getProblem().getReadyTime(pre);
-            strings[index++] = "" + this.getProblem().getDueTime(pre);
-            strings[index++] = "" + 0;
-            strings[index++] = "" + 0;
-            strings[index++] = "" + this.getProblem().getServiceTime(pre);
-            text += ExpositoUtilities.getFormat(strings, width);
-            text += "\n";
-            do {                // recorremos la ruta
-                index = 0;
-                suc = this.getSuccessor(pre);
-                textSolution += pre+" - ";
-                strings[index++] = "" + suc;
-                strings[index++] = "" + this.getProblem().getX(suc);
-                strings[index++] = "" + this.getProblem().getY(suc);
-                strings[index++] = "" + this.getProblem().getReadyTime(suc);
-                strings[index++] = "" + this.getProblem().getDueTime(suc);
-                costTimeRoute += this.getDistance(pre, suc);
-                if(costTimeRoute < (this.getProblem().getDueTime(suc))) {
-                    if(costTimeRoute < this.getProblem().getReadyTime(suc)) {
-                        costTimeRoute = this.getProblem().getReadyTime(suc);
-                    }
-                    strings[index++] = "" + costTimeRoute;
-                    costTimeRoute +=  this.getProblem().getServiceTime(suc);
-                    strings[index++] = "" + costTimeRoute;
-                    strings[index++] = "" + this.getProblem().getServiceTime(pre);
-                    if(costTimeRoute > this.getProblem().getMaxTimePerRoute()) { validSolution = false; }
-                    fitnessScoreRoute += this.problem.getScore(suc);
-                } else { validSolution = false; }                  
-                pre = suc;
-                text += ExpositoUtilities.getFormat(strings, width);
-                text += "\n";
-            } while(suc != depot);
-            textSolution += suc+"\n";
-            costTimeSolution += costTimeRoute;
-            fitnessScore += fitnessScoreRoute;
-        }
-        textSolution += "FEASIBLE SOLUTION: "+validSolution+"\n"+"SCORE: "+fitnessScore+"\n"+"TIME COST: "+costTimeSolution+"\n";
-        return textSolution+text;
+        StringBuilder info = new StringBuilder();
+        new TOPTWReportWriter(info, TOPTWReportWriter.Verbosity.FULL).writeSolution(this);
+        return info.toString();
     }
 
     /**
@@ -350,8 +686,8 @@ public class TOPTWSolution {
         this.routes[routePos] = depot;
         this.availableVehicles--;
         this.predecessors[depot] = depot;
-        this.successors[depot] = depot;
-        this.problem.addNodeDepot();
+        this.link(depot, depot);
+        this.updateRouteTimes(routePos);
         return depot;
     }
 
@@ -0,0 +1,79 @@
+package top;
+
+import java.util.SplittableRandom;
+
+/**
+ * @brief Random source backed by java.util.SplittableRandom.
+ */
+public class TOPTWSplittableRandomSource implements TOPTWRandomSource {
+    private SplittableRandom random;
+
+    /**
+     * @brief Constructor of the class with a seed taken from the system.
+     */
+    public TOPTWSplittableRandomSource() {
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param seed
+     */
+    public TOPTWSplittableRandomSource(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @brief Constructor of the class from an existing generator.
+     * @param random
+     */
+    private TOPTWSplittableRandomSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * @brief Method to restart the sequence of the generator from a seed.
+     * @param seed
+     */
+    @Override
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @brief Method to get a random integer between 0 (inclusive) and bound (exclusive).
+     * @param bound
+     * @return The random integer.
+     */
+    @Override
+    public int nextInt(int bound) {
+        return this.random.nextInt(bound);
+    }
+
+    /**
+     * @brief Method to get a random long.
+     * @return The random long.
+     */
+    @Override
+    public long nextLong() {
+        return this.random.nextLong();
+    }
+
+    /**
+     * @brief Method to get a random double between 0 (inclusive) and 1 (exclusive).
+     * @return The random double.
+     */
+    @Override
+    public double nextDouble() {
+        return this.random.nextDouble();
+    }
+
+    /**
+     * @brief Method to create a new generator with a statistically independent sequence.
+     * @return The new generator.
+     */
+    @Override
+    public TOPTWRandomSource split() {
+        return new TOPTWSplittableRandomSource(this.random.split());
+    }
+}
@@ -0,0 +1,63 @@
+package top;
+
+/**
+ * @brief Distance matrix that only stores the upper triangle (diagonal included).
+ * @details Uses about half the memory of the flat matrix at the cost of ordering the
+ * indices on every access.
+ */
+public class TOPTWTriangularDistanceMatrix implements TOPTWDistanceMatrix {
+    private final int size;
+    private final double[] distances;
+
+    /**
+     * @brief Constructor of the class.
+     * @param size Number of nodes.
+     */
+    public TOPTWTriangularDistanceMatrix(int size) {
+        this.size = size;
+        this.distances = new double[Math.toIntExact((long) size * (size + 1) / 2)];
+    }
+
+    /**
+     * @brief Method to get the position of a pair of nodes in the array.
+     * @param i
+     * @param j
+     * @return The position of the pair.
+     */
+    private int index(int i, int j) {
+        long row = Math.min(i, j);
+        long column = Math.max(i, j);
+        return (int) (row * (2L * this.size - row - 1) / 2 + column);
+    }
+
+    /**
+     * @brief Method to get the distance between two nodes.
+     * @param i
+     * @param j
+     * @return The distance.
+     */
+    @Override
+    public double get(int i, int j) {
+        return this.distances[this.index(i, j)];
+    }
+
+    /**
+     * @brief Method to set the distance between two nodes in both directions.
+     * @param i
+     * @param j
+     * @param distance
+     */
+    @Override
+    public void set(int i, int j, double distance) {
+        this.distances[this.index(i, j)] = distance;
+    }
+
+    /**
+     * @brief Method to get the number of nodes.
+     * @return The number of nodes.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+}
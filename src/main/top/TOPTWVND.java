@@ -0,0 +1,298 @@
+package top;
+
+import java.util.Arrays;
+
+import top.TOPTWLocalSearch.Neighborhood;
+
+/**
+ * @brief Class to improve a TOPTW solution with a variable neighborhood descent (VND).
+ * @details The neighborhoods are explored in order and the search restarts from the first one
+ * after every improvement, so the later neighborhoods only run when the earlier ones stall.
+ * The moves are those of TOPTWLocalSearch, applied with its policy.
+ * @details The calls, improvements, evaluated moves and time of every neighborhood are
+ * recorded, and the ordering selects how they are used after every descent. FIXED keeps the
+ * given order. MOVES, the default, sorts the neighborhoods by improvements per evaluated
+ * move, so the cheap and productive ones go first; the counters only depend on the search,
+ * so sequential runs with the same seed are reproducible. TIME sorts them by improvements
+ * per nanosecond, which reflects the real cost of every move better but depends on the
+ * measured times, so those runs are not reproducible even with a seed. A deadline also
+ * makes the descents depend on the time, whatever the ordering.
+ * @details copy() keeps the current order but none of the statistics behind it. The parallel
+ * GRASP improves every iteration with a fresh copy, so there MOVES and TIME only reorder within
+ * a descent and every iteration starts from the order this VND had when the run started. That
+ * keeps parallel runs reproducible for any number of threads, but the order does not learn
+ * across iterations as it does in sequential runs.
+ */
+public class TOPTWVND implements TOPTWImprovementPhase {
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * @brief Criterion used to reorder the neighborhoods after every descent.
+     */
+    public enum Ordering {
+        /** The order is never changed. */
+        FIXED,
+        /** Improvements per evaluated move; reproducible. */
+        MOVES,
+        /** Improvements per nanosecond; depends on the measured times. */
+        TIME
+    }
+
+    private final TOPTWLocalSearch localSearch;
+    private Neighborhood[] order;
+    private Ordering ordering;
+    private long deadline;
+
+    // estadísticas por vecindario, indexadas por ordinal
+    private long[] calls;
+    private long[] improvements;
+    private long[] moves;
+    private long[] nanos;
+
+    /**
+     * @brief Constructor of the class with all the neighborhoods, cheapest first, ordered by MOVES.
+     */
+    public TOPTWVND() {
+        this(new TOPTWLocalSearch(), Ordering.MOVES, Neighborhood.INSERT_UNVISITED, Neighborhood.RELOCATE, Neighborhood.SWAP,
+                Neighborhood.REPLACE_UNVISITED, Neighborhood.OR_OPT, Neighborhood.TWO_OPT);
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param localSearch Local search that applies the moves.
+     * @param ordering Criterion used to reorder the neighborhoods after every descent.
+     * @param order Initial order of the neighborhoods.
+     */
+    public TOPTWVND(TOPTWLocalSearch localSearch, Ordering ordering, Neighborhood... order) {
+        if(order.length == 0) {
+            throw new IllegalArgumentException("The VND needs at least one neighborhood");
+        }
+        this.localSearch = localSearch;
+        this.order = order.clone();
+        this.ordering = ordering;
+        this.deadline = TOPTWVND.NO_DEADLINE;
+        this.calls = new long[Neighborhood.values().length];
+        this.improvements = new long[Neighborhood.values().length];
+        this.moves = new long[Neighborhood.values().length];
+        this.nanos = new long[Neighborhood.values().length];
+    }
+
+    /**
+     * @brief Method to create a VND with the same configuration and no statistics.
+     * @details The copy starts from the current order of this VND.
+     * @return The new VND.
+     */
+    @Override
+    public TOPTWVND copy() {
+        TOPTWVND copy = new TOPTWVND(this.localSearch.copy(), this.ordering, this.order);
+        copy.deadline = this.deadline;
+        return copy;
+    }
+
+    /**
+     * @brief Method to improve a solution until no neighborhood finds an improving move.
+     * @details The descent also stops when the deadline is reached.
+     * @param solution Solution to improve, with the times of its routes up to date.
+     * @return True if the solution was improved, false otherwise.
+     */
+    @Override
+    public boolean improve(TOPTWSolution solution) {
+        boolean improved = false;
+        int i = 0;
+        while(i < this.order.length && !this.isDeadlineReached()) {
+            Neighborhood neighborhood = this.order[i];
+            long evaluated = this.localSearch.getEvaluatedMoves();
+            long start = System.nanoTime();
+            boolean applied = this.localSearch.explore(neighborhood, solution);
+            this.nanos[neighborhood.ordinal()] += System.nanoTime() - start;
+            this.moves[neighborhood.ordinal()] += this.localSearch.getEvaluatedMoves() - evaluated;
+            this.calls[neighborhood.ordinal()]++;
+            if(applied) {
+                this.improvements[neighborhood.ordinal()]++;
+                improved = true;
+                i = 0;
+            } else {
+                i++;
+            }
+        }
+        if(this.ordering != Ordering.FIXED) {
+            this.reorder();
+        }
+        return improved;
+    }
+
+    /**
+     * @brief Method to know if the deadline has been reached.
+     * @return True if the deadline has been reached, false otherwise.
+     */
+    private boolean isDeadlineReached() {
+        return this.deadline != TOPTWVND.NO_DEADLINE && System.nanoTime() - this.deadline >= 0;
+    }
+
+    /**
+     * @brief Method to sort the neighborhoods by improvements per evaluated move or per unit of time.
+     * @details Neighborhoods not explored yet go first so they get statistics.
+     * The sort is stable, so ties keep the current order.
+     */
+    private void reorder() {
+        for(int i = 1; i < this.order.length; i++) {
+            Neighborhood neighborhood = this.order[i];
+            double rate = this.getRate(neighborhood);
+            int pos = i;
+            while(pos > 0 && this.getRate(this.order[pos-1]) < rate) {
+                this.order[pos] = this.order[pos-1];
+                pos--;
+            }
+            this.order[pos] = neighborhood;
+        }
+    }
+
+    /**
+     * @brief Method to get the improvements per evaluated move or per nanosecond of a neighborhood.
+     * @param neighborhood
+     * @return The rate, infinite if the neighborhood was not explored yet.
+     */
+    private double getRate(Neighborhood neighborhood) {
+        int n = neighborhood.ordinal();
+        if(this.calls[n] == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        long cost = this.ordering == Ordering.TIME ? this.nanos[n] : this.moves[n];
+        return this.improvements[n] / (double) Math.max(cost, 1);
+    }
+
+    /**
+     * @brief Method to add the statistics of a copy of this VND to this one.
+     * @param other VND created with copy().
+     */
+    @Override
+    public void addCounters(TOPTWImprovementPhase other) {
+        TOPTWVND otherVND = (TOPTWVND) other;
+        for(int n = 0; n < this.calls.length; n++) {
+            this.calls[n] += otherVND.calls[n];
+            this.improvements[n] += otherVND.improvements[n];
+            this.moves[n] += otherVND.moves[n];
+            this.nanos[n] += otherVND.nanos[n];
+        }
+        this.localSearch.addCounters(otherVND.localSearch);
+    }
+
+    /**
+     * @brief Method to reset the statistics of the neighborhoods.
+     */
+    @Override
+    public void resetCounters() {
+        Arrays.fill(this.calls, 0);
+        Arrays.fill(this.improvements, 0);
+        Arrays.fill(this.moves, 0);
+        Arrays.fill(this.nanos, 0);
+        this.localSearch.resetCounters();
+    }
+
+    /**
+     * @brief Method to get the number of times a neighborhood was explored.
+     * @param neighborhood
+     * @return The number of calls.
+     */
+    public long getCalls(Neighborhood neighborhood) {
+        return this.calls[neighborhood.ordinal()];
+    }
+
+    /**
+     * @brief Method to get the number of improvements found by a neighborhood.
+     * @param neighborhood
+     * @return The number of improvements.
+     */
+    public long getImprovements(Neighborhood neighborhood) {
+        return this.improvements[neighborhood.ordinal()];
+    }
+
+    /**
+     * @brief Method to get the number of moves evaluated by a neighborhood.
+     * @param neighborhood
+     * @return The number of moves.
+     */
+    public long getEvaluatedMoves(Neighborhood neighborhood) {
+        return this.moves[neighborhood.ordinal()];
+    }
+
+    /**
+     * @brief Method to get the time spent exploring a neighborhood.
+     * @param neighborhood
+     * @return The time in nanoseconds.
+     */
+    public long getTime(Neighborhood neighborhood) {
+        return this.nanos[neighborhood.ordinal()];
+    }
+
+    /**
+     * @brief Method to get the fraction of explorations of a neighborhood that improved the solution.
+     * @param neighborhood
+     * @return The improvement rate, 0 if the neighborhood was not explored.
+     */
+    public double getImprovementRate(Neighborhood neighborhood) {
+        int n = neighborhood.ordinal();
+        return this.calls[n] == 0 ? 0.0 : this.improvements[n] / (double) this.calls[n];
+    }
+
+    /**
+     * @brief Method to get the current order of the neighborhoods.
+     * @return A copy of the order.
+     */
+    public Neighborhood[] getOrder() {
+        return this.order.clone();
+    }
+
+    /**
+     * @brief Method to set the order of the neighborhoods.
+     * @param order
+     */
+    public void setOrder(Neighborhood... order) {
+        if(order.length == 0) {
+            throw new IllegalArgumentException("The VND needs at least one neighborhood");
+        }
+        this.order = order.clone();
+    }
+
+    /**
+     * @brief Method to get the criterion used to reorder the neighborhoods.
+     * @return The ordering.
+     */
+    public Ordering getOrdering() {
+        return this.ordering;
+    }
+
+    /**
+     * @brief Method to set the criterion used to reorder the neighborhoods.
+     * @param ordering
+     */
+    public void setOrdering(Ordering ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * @brief Method to get the deadline of the descents.
+     * @return The deadline in System.nanoTime() units, NO_DEADLINE if there is none.
+     */
+    public long getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * @brief Method to set the deadline of the descents.
+     * @details A descent stops at the first neighborhood started after the deadline and
+     * keeps the moves already applied, so the solution is always feasible.
+     * @param deadline Deadline in System.nanoTime() units, NO_DEADLINE to remove it.
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @brief Method to get the local search that applies the moves.
+     * @return The local search.
+     */
+    public TOPTWLocalSearch getLocalSearch() {
+        return this.localSearch;
+    }
+}
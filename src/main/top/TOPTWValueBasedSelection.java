@@ -0,0 +1,43 @@
+package top;
+
+/**
+ * @brief Strategy that selects a random candidate of a value-based RCL.
+ * @details The RCL holds every candidate whose cost is not greater than
+ * cmin + alpha * (cmax - cmin), where cmin and cmax are the lowest and highest costs.
+ * An alpha of 0 gives a greedy construction and an alpha of 1 a random one.
+ */
+public class TOPTWValueBasedSelection implements TOPTWSelectionStrategy {
+    /**
+     * @brief Method to select the candidate to insert.
+     * @details The maximum size of the RCL is not used.
+     * @param problem
+     * @param candidates
+     * @param maxSizeRCL
+     * @param alpha Fraction of the cost range admitted in the RCL.
+     * @param random
+     * @return The index of the selected candidate.
+     */
+    @Override
+    public int select(TOPTW problem, TOPTWCandidateList candidates, int maxSizeRCL, double alpha, TOPTWRandomSource random) {
+        double minCost = Double.MAX_VALUE, maxCost = -Double.MAX_VALUE;
+        for(int i = 0; i < candidates.size(); i++) {
+            double cost = candidates.getCost(i);
+            if(cost < minCost) { minCost = cost; }
+            if(cost > maxCost) { maxCost = cost; }
+        }
+        double threshold = minCost + alpha * (maxCost - minCost);
+        int rclSize = 0;
+        for(int i = 0; i < candidates.size(); i++) {
+            if(candidates.getCost(i) <= threshold) {
+                rclSize++;
+            }
+        }
+        int selected = random.nextInt(rclSize);
+        for(int i = 0; i < candidates.size(); i++) {
+            if(candidates.getCost(i) <= threshold && selected-- == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,125 @@
+package top;
+
+/**
+ * @brief Random source implementing the xoshiro256** generator.
+ * @details The state is seeded with splitmix64. split() seeds the new generator with four
+ * outputs of this one mixed with splitmix64, as the splittable generators of the JDK do, so
+ * every split, also of a generator that was itself split, starts at an unrelated point of the
+ * 2^256 - 1 period. Two streams only overlap if their starting points fall within the length
+ * of one of them, which for any realistic number and length of streams has negligible
+ * probability. Jumping a fixed distance ahead cannot be used for this: the jumps commute, so
+ * nested splits end up at the same state (split a child and then the parent again).
+ */
+public class TOPTWXoshiroRandomSource implements TOPTWRandomSource {
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    /**
+     * @brief Constructor of the class with a seed taken from the system.
+     */
+    public TOPTWXoshiroRandomSource() {
+        this(System.nanoTime() ^ Thread.currentThread().getId());
+    }
+
+    /**
+     * @brief Constructor of the class.
+     * @param seed
+     */
+    public TOPTWXoshiroRandomSource(long seed) {
+        this.setSeed(seed);
+    }
+
+    /**
+     * @brief Constructor of the class from an explicit state.
+     */
+    private TOPTWXoshiroRandomSource(long s0, long s1, long s2, long s3) {
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+    }
+
+    /**
+     * @brief Method to restart the sequence of the generator from a seed.
+     * @param seed
+     */
+    @Override
+    public void setSeed(long seed) {
+        long x = seed;
+        this.s0 = splitMix64(x += 0x9e3779b97f4a7c15L);
+        this.s1 = splitMix64(x += 0x9e3779b97f4a7c15L);
+        this.s2 = splitMix64(x += 0x9e3779b97f4a7c15L);
+        this.s3 = splitMix64(x += 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * @brief Method to get a random long.
+     * @return The random long.
+     */
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(this.s1 * 5, 7) * 9;
+        long t = this.s1 << 17;
+        this.s2 ^= this.s0;
+        this.s3 ^= this.s1;
+        this.s1 ^= this.s2;
+        this.s0 ^= this.s3;
+        this.s2 ^= t;
+        this.s3 = Long.rotateLeft(this.s3, 45);
+        return result;
+    }
+
+    /**
+     * @brief Method to get a random integer between 0 (inclusive) and bound (exclusive).
+     * @details Rejection sampling as in java.util.Random, so the result is not biased.
+     * @param bound
+     * @return The random integer.
+     */
+    @Override
+    public int nextInt(int bound) {
+        if(bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = (int) (this.nextLong() >>> 33);
+        int m = bound - 1;
+        if((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for(int u = r; u - (r = u % bound) + m < 0; u = (int) (this.nextLong() >>> 33)) {
+        }
+        return r;
+    }
+
+    /**
+     * @brief Method to get a random double between 0 (inclusive) and 1 (exclusive).
+     * @return The random double.
+     */
+    @Override
+    public double nextDouble() {
+        return (this.nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @brief Method to create a new generator with a statistically independent sequence.
+     * @details This generator advances four steps.
+     * @return The new generator.
+     */
+    @Override
+    public TOPTWRandomSource split() {
+        return new TOPTWXoshiroRandomSource(splitMix64(this.nextLong()), splitMix64(this.nextLong()),
+                splitMix64(this.nextLong()), splitMix64(this.nextLong()));
+    }
+
+    /**
+     * @brief Method to mix a seed with the splitmix64 finalizer.
+     * @param z
+     * @return The mixed value.
+     */
+    private static long splitMix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
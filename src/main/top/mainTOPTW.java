@@ -7,7 +7,7 @@ public class mainTOPTW {
 
     /**
      * @brief Main method to execute the program.
-     * @param args
+     * @param args Optional name of the selection strategy (random, fuzzy-best, alpha-cut, value or bias).
      */
     public static void main(String[] args) {
         
@@ -31,11 +31,13 @@ public class mainTOPTW {
             TOPTW problem = TOPTWReader.readProblem(INSTANCE);
             TOPTWSolution solution = new TOPTWSolution(problem);
             TOPTWGRASP grasp = new TOPTWGRASP(solution);
+            if(args.length > 0) {
+                grasp.setSelectionStrategy(TOPTWSelectionStrategy.forName(args[0]));
+            }
 
             System.out.println(" --> Instance: "+instances[i]);
-            grasp.GRASP(10000, 3);
-            grasp.GRASP(10000, 5);
-            grasp.GRASP(10000, 7);
+            TOPTWGRASPResult result = grasp.reactiveGRASP(10000, new int[]{3, 5, 7}, new double[]{0.6, 0.8, 1.0});
+            System.out.println(result.getBestSolution().getInfoSolution());
             System.out.println("");
         }
     }
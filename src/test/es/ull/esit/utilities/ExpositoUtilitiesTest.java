@@ -0,0 +1,174 @@
+package es.ull.esit.utilities;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * @brief Tests of the cached formatters of ExpositoUtilities.
+ * @details The output is compared with the implementation that built a DecimalFormat or a
+ * String.format pattern on every call, which is kept here as the reference.
+ */
+public class ExpositoUtilitiesTest extends TestCase {
+    private static final double[] EDGE_VALUES = {0, -0.0, 1, -1, 0.0005, 0.0015, 0.0025, 2.5, 1.2345, -1.2345,
+        123456789.123456, 1e20, 1e-20, 0.9995, 99.9995, 1.0005, 7.0/3, Double.NaN, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY, Double.MAX_VALUE, Double.MIN_VALUE};
+    private static final String[] STRINGS = {"", "a", "12", "-12", "+12", "2147483648", "35.0", "1e3", "NaN",
+        "Infinity", " 5", "0x10", "1.5f", "CUST NO.", "\nROUTE 0", "-0", "1_000", "5d", "  ", null};
+    private static final int[] WIDTHS = {1, 5, 15, 30};
+
+    public void testNumbersMatchDecimalFormat() {
+        for(double value : ExpositoUtilitiesTest.EDGE_VALUES) {
+            assertEquals(referenceFormat(value, 3), ExpositoUtilities.getFormat(value));
+            for(int zeros = 0; zeros < 6; zeros++) {
+                assertEquals(referenceFormat(value, zeros), ExpositoUtilities.getFormat(value, zeros));
+            }
+        }
+        Random random = new Random(1);
+        for(int i = 0; i < 20000; i++) {
+            double value = (random.nextDouble() - 0.3) * Math.pow(10, random.nextInt(12) - 4);
+            if(i % 3 == 0) {
+                // valores en el punto medio del redondeo
+                value = Math.round(value * 2000) / 2000.0;
+            }
+            assertEquals(referenceFormat(value, 3), ExpositoUtilities.getFormat(value));
+            assertEquals(referenceFormat(value, i % 6), ExpositoUtilities.getFormat(value, i % 6));
+            assertEquals(referenceFormat("" + value), ExpositoUtilities.getFormat("" + value));
+        }
+    }
+
+    public void testAppendFormatMatchesGetFormat() {
+        StringBuilder builder = new StringBuilder("x");
+        ExpositoUtilities.appendFormat(builder, 2.5, 2);
+        ExpositoUtilities.appendFormat(builder, "ab", 5, ExpositoUtilities.ALIGNMENT_RIGHT);
+        ExpositoUtilities.appendFormat(builder, "ab", 5, ExpositoUtilities.ALIGNMENT_LEFT);
+        assertEquals("x" + referenceFormat(2.5, 2) + String.format("%5s", "ab") + String.format("%-5s", "ab"), builder.toString());
+    }
+
+    public void testStringsMatchStringFormat() {
+        for(String string : ExpositoUtilitiesTest.STRINGS) {
+            assertEquals(referenceFormat(string), ExpositoUtilities.getFormat(string));
+            for(int width : ExpositoUtilitiesTest.WIDTHS) {
+                assertEquals(String.format("%" + width + "s", string), ExpositoUtilities.getFormat(string, width));
+                assertEquals(String.format("%-" + width + "s", string),
+                        ExpositoUtilities.getFormat(string, width, ExpositoUtilities.ALIGNMENT_LEFT));
+            }
+            assertEquals(referenceIsInteger(string), ExpositoUtilities.isInteger(string));
+            assertEquals(referenceIsDouble(string), ExpositoUtilities.isDouble(string));
+        }
+    }
+
+    public void testRowsMatchStringFormat() {
+        String[] row = {"1", "2.5", null, "x", "-3.25", "\nR"};
+        int[] right = new int[row.length];
+        Arrays.fill(right, ExpositoUtilities.ALIGNMENT_RIGHT);
+        int[] mixed = {1, 2, 1, 2, 1, 2};
+        int[] narrow = {1, 2, 3, 4, 5, 6};
+        int[] wide = {8, 8, 8, 8, 8, 8};
+        int[] defaults = new int[row.length];
+        Arrays.fill(defaults, ExpositoUtilities.DEFAULT_COLUMN_WIDTH);
+        int[] twelve = new int[row.length];
+        Arrays.fill(twelve, 12);
+        assertEquals(referenceRow(row, defaults, right), ExpositoUtilities.getFormat(row));
+        assertEquals(referenceRow(row, twelve, right), ExpositoUtilities.getFormat(row, 12));
+        assertEquals(referenceRow(row, narrow, right), ExpositoUtilities.getFormat(row, narrow));
+        assertEquals(referenceRow(row, wide, mixed), ExpositoUtilities.getFormat(row, wide, mixed));
+        assertEquals("", ExpositoUtilities.getFormat(new String[0]));
+
+        String[] second = {"7", "8.125"};
+        int[] nine = {9, 9, 9, 9, 9, 9};
+        String matrix = referenceRow(row, nine, right) + "\n" + referenceRow(second, nine, right) + "\n";
+        assertEquals(matrix, ExpositoUtilities.getFormat(new String[][]{row, second, {}}, 9));
+
+        ArrayList<String> strings = new ArrayList<String>(Arrays.asList("3", "4.5", null, "z"));
+        int[] seven = {7, 7, 7, 7};
+        assertEquals(referenceRow(strings.toArray(new String[0]), seven, right), ExpositoUtilities.getFormat(strings, 7));
+        ArrayList<Integer> integers = new ArrayList<Integer>(Arrays.asList(3, -45, null, 123456789));
+        assertEquals(String.format("%10s%10s%10s%10s", integers.toArray()), ExpositoUtilities.getFormat(integers));
+    }
+
+    /**
+     * @brief Method to format a double with a new DecimalFormat, as the original implementation.
+     * @param value
+     * @param zeros
+     * @return The formatted double.
+     */
+    private static String referenceFormat(double value, int zeros) {
+        String format = "0.";
+        for(int i = 0; i < zeros; i++) {
+            format += "0";
+        }
+        DecimalFormat decimalFormatter = new DecimalFormat(format);
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+        symbols.setDecimalSeparator('.');
+        decimalFormatter.setDecimalFormatSymbols(symbols);
+        return decimalFormatter.format(value);
+    }
+
+    /**
+     * @brief Method to format a string as the original implementation.
+     * @param string
+     * @return The string, with three decimals if it is a double but not an integer.
+     */
+    private static String referenceFormat(String string) {
+        if(!referenceIsInteger(string) && referenceIsDouble(string)) {
+            return referenceFormat(Double.parseDouble(string), 3);
+        }
+        return string;
+    }
+
+    /**
+     * @brief Method to format a row with String.format, as the original implementation.
+     * @param strings
+     * @param width
+     * @param alignment
+     * @return The formatted row.
+     */
+    private static String referenceRow(String[] strings, int[] width, int[] alignment) {
+        String format = "";
+        for(int i = 0; i < strings.length; i++) {
+            if(alignment[i] == ExpositoUtilities.ALIGNMENT_LEFT) {
+                format += "%" + (i + 1) + "$-" + width[i] + "s";
+            } else {
+                format += "%" + (i + 1) + "$" + width[i] + "s";
+            }
+        }
+        String[] data = new String[strings.length];
+        for(int t = 0; t < strings.length; t++) {
+            data[t] = "" + referenceFormat(strings[t]);
+        }
+        return String.format(format, (Object[]) data);
+    }
+
+    /**
+     * @brief Method to know if a string is an integer, as the original implementation.
+     * @param string
+     * @return True if Integer.parseInt accepts it.
+     */
+    private static boolean referenceIsInteger(String string) {
+        try {
+            Integer.parseInt(string);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * @brief Method to know if a string is a double, as the original implementation.
+     * @param string
+     * @return True if Double.parseDouble accepts it.
+     */
+    private static boolean referenceIsDouble(String string) {
+        try {
+            Double.parseDouble(string);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package top;
+
+import junit.framework.TestCase;
+
+/**
+ * @brief Tests of TOPTWEvaluator against a direct walk of the routes.
+ * @details The reference walk applies the rules of the original getInfoSolution: a POI is
+ * served if the arrival is before its due time, the route waits until the ready time and
+ * it is infeasible if it leaves a node after the maximum time per route.
+ */
+public class TOPTWEvaluatorTest extends TestCase {
+    private static final String[] INSTANCES = {"c101", "r101", "rc105", "c104", "r112", "pr01"};
+    private static final int SOLUTIONS = 50;
+    private static final int RCL_SIZE = 5;
+    private static final double EPSILON = 1e-9;
+
+    public void testEvaluateMatchesRouteWalk() {
+        TOPTWEvaluator evaluator = new TOPTWEvaluator();
+        for(String instance : TOPTWEvaluatorTest.INSTANCES) {
+            TOPTWGRASP grasp = newGRASP(instance);
+            for(int it = 0; it < TOPTWEvaluatorTest.SOLUTIONS; it++) {
+                TOPTWSolution solution = nextSolution(grasp, it);
+                double[] reference = walk(solution);
+                String label = instance + " solution " + it;
+                assertEquals(label, reference[0], evaluator.evaluate(solution), 0.0);
+                assertEquals(label, reference[0], evaluator.getScore(), 0.0);
+                assertEquals(label, reference[1], evaluator.getTimeCost(), 0.0);
+                assertEquals(label, reference[2] == 1.0, evaluator.isFeasible());
+                assertEquals(label, solution.getCreatedRoutes(), evaluator.getRoutes());
+                double total = 0.0;
+                for(int k = 0; k < evaluator.getRoutes(); k++) {
+                    total += evaluator.getRouteDuration(k);
+                }
+                assertEquals(label, evaluator.getTimeCost(), total, 0.0);
+                assertEquals(label, solution.evaluateFitness(), evaluator.getScore(), 0.0);
+            }
+        }
+    }
+
+    public void testRouteChangeMatchesReevaluation() {
+        TOPTWEvaluator evaluator = new TOPTWEvaluator();
+        int checked = 0;
+        for(String instance : TOPTWEvaluatorTest.INSTANCES) {
+            TOPTWGRASP grasp = newGRASP(instance);
+            for(int it = 0; it < TOPTWEvaluatorTest.SOLUTIONS; it++) {
+                TOPTWSolution solution = nextSolution(grasp, it);
+                int[] sequence = new int[solution.getProblem().getPOIs()];
+                for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+                    int depot = solution.getIndexRoute(k);
+                    int length = 0;
+                    for(int c = solution.getSuccessor(depot); c != depot; c = solution.getSuccessor(c)) {
+                        sequence[length++] = c;
+                    }
+                    if(length < 2) {
+                        continue;
+                    }
+                    // se quita el segundo POI de la ruta
+                    int removed = sequence[1];
+                    System.arraycopy(sequence, 2, sequence, 1, length - 2);
+                    length--;
+                    double score = evaluator.evaluate(solution);
+                    double duration = evaluator.getRouteDuration(k);
+                    boolean feasible = evaluator.evaluateRouteChange(solution, k, sequence, length);
+                    double deltaScore = evaluator.getDeltaScore();
+                    double deltaTime = evaluator.getDeltaTime();
+
+                    TOPTWSolution changed = new TOPTWSolution(solution);
+                    changed.removeCustomer(removed);
+                    changed.updateRouteTimes(k);
+                    String label = instance + " solution " + it + " route " + k;
+                    assertEquals(label, evaluator.evaluate(changed) - score, deltaScore, TOPTWEvaluatorTest.EPSILON);
+                    assertEquals(label, evaluator.getRouteDuration(k) - duration, deltaTime, TOPTWEvaluatorTest.EPSILON);
+                    assertEquals(label, evaluator.isFeasible(), feasible);
+                    checked++;
+                }
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    /**
+     * @brief Method to create a seeded GRASP for an instance.
+     * @param instance Name of the instance.
+     * @return The GRASP.
+     */
+    private static TOPTWGRASP newGRASP(String instance) {
+        TOPTW problem = TOPTWReader.readProblem("Instances/TOPTW/" + instance + ".txt");
+        return new TOPTWGRASP(new TOPTWSolution(problem), 5L);
+    }
+
+    /**
+     * @brief Method to build the next solution of a GRASP, improving every other one.
+     * @param grasp
+     * @param it Number of the solution.
+     * @return The solution.
+     */
+    private static TOPTWSolution nextSolution(TOPTWGRASP grasp, int it) {
+        grasp.computeGreedySolution(TOPTWEvaluatorTest.RCL_SIZE);
+        TOPTWSolution solution = grasp.getSolution();
+        if(it % 2 == 0) {
+            new TOPTWLocalSearch().improve(solution);
+        }
+        return solution;
+    }
+
+    /**
+     * @brief Method to walk the routes of a solution with the rules of getInfoSolution.
+     * @param solution
+     * @return The score, the time cost and 1 if it is feasible, 0 otherwise.
+     */
+    private static double[] walk(TOPTWSolution solution) {
+        TOPTW problem = solution.getProblem();
+        double score = 0.0, timeCost = 0.0;
+        boolean feasible = true;
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            int pre = depot, suc;
+            double time = 0.0;
+            do {
+                suc = solution.getSuccessor(pre);
+                time += solution.getDistance(pre, suc);
+                if(time < problem.getDueTime(suc)) {
+                    if(time < problem.getReadyTime(suc)) {
+                        time = problem.getReadyTime(suc);
+                    }
+                    time += problem.getServiceTime(suc);
+                    if(time > problem.getMaxTimePerRoute()) {
+                        feasible = false;
+                    }
+                    score += problem.getScore(suc);
+                } else {
+                    feasible = false;
+                }
+                pre = suc;
+            } while(suc != depot);
+            timeCost += time;
+        }
+        return new double[]{score, timeCost, feasible ? 1.0 : 0.0};
+    }
+}
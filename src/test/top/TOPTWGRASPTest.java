@@ -0,0 +1,66 @@
+package top;
+
+import junit.framework.TestCase;
+
+/**
+ * @brief Tests of the reproducibility of the seeded parallel GRASP.
+ * @details A seeded run must give the same result whatever the number of threads,
+ * with the default local search and with a VND that reorders its neighborhoods.
+ */
+public class TOPTWGRASPTest extends TestCase {
+    private static final String INSTANCE = "Instances/TOPTW/r112.txt";
+    private static final int ITERATIONS = 200;
+    private static final int RCL_SIZE = 3;
+    private static final long SEED = 7L;
+    private static final int[] THREADS = {1, 2, 4};
+
+    private TOPTW problem;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.problem = TOPTWReader.readProblem(TOPTWGRASPTest.INSTANCE);
+    }
+
+    public void testParallelGRASPWithLocalSearchIsReproducible() {
+        this.checkReproducible(new TOPTWLocalSearch());
+    }
+
+    public void testParallelGRASPWithVNDIsReproducible() {
+        this.checkReproducible(new TOPTWVND());
+    }
+
+    /**
+     * @brief Method to check that seeded runs give the same result with 1, 2 and 4 threads.
+     * @param phase Improvement phase of the runs.
+     */
+    private void checkReproducible(TOPTWImprovementPhase phase) {
+        TOPTWGRASPResult reference = null;
+        for(int threads : TOPTWGRASPTest.THREADS) {
+            for(int run = 0; run < 2; run++) {
+                TOPTWGRASPResult result = this.run(phase.copy(), threads);
+                if(reference == null) {
+                    reference = result;
+                    continue;
+                }
+                String label = threads + " threads, run " + run;
+                assertEquals(label, reference.getBestFitness(), result.getBestFitness(), 0.0);
+                assertEquals(label, reference.getBestIteration(), result.getBestIteration());
+                assertEquals(label, reference.getAverageFitness(), result.getAverageFitness(), 0.0);
+                assertEquals(label, reference.getBestSolution().getInfoSolution(), result.getBestSolution().getInfoSolution());
+            }
+        }
+    }
+
+    /**
+     * @brief Method to run a seeded parallel GRASP.
+     * @param phase Improvement phase of the run.
+     * @param threads Number of worker threads.
+     * @return The result of the run.
+     */
+    private TOPTWGRASPResult run(TOPTWImprovementPhase phase, int threads) {
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(this.problem));
+        grasp.setReportWriter(new TOPTWReportWriter(System.out, TOPTWReportWriter.Verbosity.NONE));
+        grasp.setImprovementPhase(phase);
+        return grasp.parallelGRASP(TOPTWGRASPTest.ITERATIONS, TOPTWGRASPTest.RCL_SIZE, threads, TOPTWGRASPTest.SEED);
+    }
+}
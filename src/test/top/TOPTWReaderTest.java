@@ -0,0 +1,169 @@
+package top;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @brief Tests of TOPTWReader against a plain split of the bundled instances.
+ * @details The Solomon instances (c, r, rc) must load exactly as with the original reader,
+ * which read the time window from the fixed columns 7-8 of the depot and 8-9 of the POIs.
+ * The Cordeau instances (pr) have a list of visit days of variable length, so the time
+ * window is read from the last two fields instead of those columns.
+ */
+public class TOPTWReaderTest extends TestCase {
+    private static final String INSTANCES = "Instances/TOPTW";
+
+    public void testSolomonInstancesMatchFixedColumns() throws IOException {
+        int checked = 0;
+        for(File file : instances("(c|r|rc)\\d+\\.txt")) {
+            TOPTW problem = TOPTWReader.readProblem(file.getPath());
+            List<String[]> rows = rows(file);
+            checkHeader(file, problem, rows);
+            for(int i = 0; i <= problem.getPOIs(); i++) {
+                String[] row = rows.get(i + 2);
+                int column = i == 0 ? 7 : 8;
+                checkPoint(file + " node " + i, problem, i, row, row[column], row[column + 1]);
+            }
+            checkDistances(file, problem);
+            checked++;
+        }
+        assertEquals(29, checked);
+    }
+
+    public void testCordeauInstancesReadTheLastTwoFields() throws IOException {
+        int checked = 0;
+        for(File file : instances("pr\\d+\\.txt")) {
+            TOPTW problem = TOPTWReader.readProblem(file.getPath());
+            List<String[]> rows = rows(file);
+            checkHeader(file, problem, rows);
+            boolean differsFromFixedColumns = false;
+            for(int i = 0; i <= problem.getPOIs(); i++) {
+                String[] row = rows.get(i + 2);
+                checkPoint(file + " node " + i, problem, i, row, row[row.length - 2], row[row.length - 1]);
+                if(i > 0 && (problem.getReadyTime(i) != Double.parseDouble(row[8])
+                        || problem.getDueTime(i) != Double.parseDouble(row[9]))) {
+                    differsFromFixedColumns = true;
+                }
+            }
+            // las columnas fijas leían la lista de días de visita en lugar de la ventana
+            assertTrue(file + " no longer differs from the fixed columns", differsFromFixedColumns);
+            checked++;
+        }
+        assertEquals(10, checked);
+    }
+
+    public void testSeparatorsBlankLinesAndNumberFormats() throws IOException {
+        String text = "4\t10  1 1\r\n\r\n0 200\r\n\t0 40.00 50.00 0.00 0.00 0 0 0 1236\r\n"
+                + "1  45.00\t\t68.00 90.00 1.0e1 1 1 1 +912 967.50\n";
+        File file = File.createTempFile("instance", ".txt");
+        try {
+            Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+            TOPTW problem = TOPTWReader.readProblem(file.getPath());
+            assertEquals(1, problem.getPOIs());
+            assertEquals(10, problem.getVehicles());
+            assertEquals(45.0, problem.getX(1), 0.0);
+            assertEquals(68.0, problem.getY(1), 0.0);
+            assertEquals(10.0, problem.getScore(1), 0.0);
+            assertEquals(912.0, problem.getReadyTime(1), 0.0);
+            assertEquals(967.5, problem.getDueTime(1), 0.0);
+            assertEquals(1236.0, problem.getMaxTimePerRoute(), 0.0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testShortLineIsReported() throws IOException {
+        for(String end : new String[]{"\n", "\r\n", ""}) {
+            File file = File.createTempFile("instance", ".txt");
+            try {
+                Files.write(file.toPath(), ("4 10 1 1\n0 200\n0 40 50" + end).getBytes(StandardCharsets.US_ASCII));
+                TOPTWReader.readProblem(file.getPath());
+                fail("A line with three fields was accepted");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Line 3 of "));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * @brief Method to get the bundled instances whose name matches a pattern.
+     * @param pattern
+     * @return The files, sorted by name.
+     */
+    private static File[] instances(String pattern) {
+        File[] files = new File(TOPTWReaderTest.INSTANCES).listFiles((directory, name) -> name.matches(pattern));
+        assertNotNull(files);
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * @brief Method to split the lines of an instance that are not blank.
+     * @param file
+     * @return The fields of every line.
+     * @throws IOException
+     */
+    private static List<String[]> rows(File file) throws IOException {
+        List<String[]> rows = new ArrayList<String[]>();
+        for(String line : Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII)) {
+            if(!line.trim().isEmpty()) {
+                rows.add(line.trim().split("\\s+"));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @brief Method to check the size of a problem against the first line of its file.
+     * @param file
+     * @param problem
+     * @param rows
+     */
+    private static void checkHeader(File file, TOPTW problem, List<String[]> rows) {
+        assertEquals(file.toString(), Integer.parseInt(rows.get(0)[2]), problem.getPOIs());
+        assertEquals(file.toString(), Integer.parseInt(rows.get(0)[1]), problem.getVehicles());
+        assertEquals(file.toString(), problem.getDueTime(0), problem.getMaxTimePerRoute(), 0.0);
+    }
+
+    /**
+     * @brief Method to check the data of a point against its row.
+     * @param label
+     * @param problem
+     * @param i Index of the point.
+     * @param row Fields of the row.
+     * @param readyTime Expected ready time.
+     * @param dueTime Expected due time.
+     */
+    private static void checkPoint(String label, TOPTW problem, int i, String[] row, String readyTime, String dueTime) {
+        assertEquals(label, Double.parseDouble(row[1]), problem.getX(i), 0.0);
+        assertEquals(label, Double.parseDouble(row[2]), problem.getY(i), 0.0);
+        assertEquals(label, Double.parseDouble(row[3]), problem.getServiceTime(i), 0.0);
+        assertEquals(label, Double.parseDouble(row[4]), problem.getScore(i), 0.0);
+        assertEquals(label, Double.parseDouble(readyTime), problem.getReadyTime(i), 0.0);
+        assertEquals(label, Double.parseDouble(dueTime), problem.getDueTime(i), 0.0);
+    }
+
+    /**
+     * @brief Method to check the distance matrix against the coordinates.
+     * @param file
+     * @param problem
+     */
+    private static void checkDistances(File file, TOPTW problem) {
+        for(int i = 0; i <= problem.getPOIs(); i++) {
+            for(int j = 0; j <= problem.getPOIs(); j++) {
+                double diffXs = problem.getX(i) - problem.getX(j);
+                double diffYs = problem.getY(i) - problem.getY(j);
+                assertEquals(file + " " + i + "-" + j, Math.sqrt(diffXs * diffXs + diffYs * diffYs), problem.getDistance(i, j), 0.0);
+            }
+        }
+    }
+}
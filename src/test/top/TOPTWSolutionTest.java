@@ -0,0 +1,88 @@
+package top;
+
+import junit.framework.TestCase;
+
+/**
+ * @brief Tests of the fingerprint of TOPTWSolution and of the skipping of repeated constructions.
+ */
+public class TOPTWSolutionTest extends TestCase {
+    private static final String[] INSTANCES = {"c101", "r101", "c104"};
+    private static final int SOLUTIONS = 30;
+
+    public void testFingerprintOnlyDependsOnTheRoutes() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem("Instances/TOPTW/" + instance + ".txt");
+            TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem), 11L);
+            for(int it = 0; it < TOPTWSolutionTest.SOLUTIONS; it++) {
+                grasp.computeGreedySolution(3);
+                TOPTWSolution solution = grasp.getSolution();
+                TOPTWSolution rebuilt = rebuild(solution);
+                String label = instance + " solution " + it;
+                assertEquals(label, solution.getFingerprint(), rebuilt.getFingerprint());
+                assertTrue(label, solution.equals(rebuilt));
+                assertEquals(label, solution.getFingerprint(), new TOPTWSolution(solution).getFingerprint());
+            }
+        }
+    }
+
+    public void testFingerprintIsRestoredByUndoingAMove() {
+        TOPTW problem = TOPTWReader.readProblem("Instances/TOPTW/c101.txt");
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem), 11L);
+        grasp.computeGreedySolution(3);
+        TOPTWSolution solution = grasp.getSolution();
+        long fingerprint = solution.getFingerprint();
+        int depot = solution.getIndexRoute(0);
+        int first = solution.getSuccessor(depot);
+        assertFalse(solution.isDepot(first));
+        solution.removeCustomer(first);
+        assertTrue(fingerprint != solution.getFingerprint());
+        solution.insertAfter(first, depot);
+        assertEquals(fingerprint, solution.getFingerprint());
+    }
+
+    public void testSkippingRepeatedConstructionsKeepsTheResult() {
+        for(String instance : TOPTWSolutionTest.INSTANCES) {
+            TOPTW problem = TOPTWReader.readProblem("Instances/TOPTW/" + instance + ".txt");
+            TOPTWGRASPResult skipping = run(problem, TOPTWSeenSolutions.DEFAULT_CAPACITY);
+            TOPTWGRASPResult all = run(problem, 0);
+            assertEquals(instance, all.getAverageFitness(), skipping.getAverageFitness(), 0.0);
+            assertEquals(instance, all.getBestFitness(), skipping.getBestFitness(), 0.0);
+            assertEquals(instance, all.getBestIteration(), skipping.getBestIteration());
+        }
+    }
+
+    /**
+     * @brief Method to run a seeded GRASP with the deterministic fuzzy best selection.
+     * @param problem
+     * @param capacity Capacity of the table of seen solutions, 0 to disable it.
+     * @return The result of the run.
+     */
+    private static TOPTWGRASPResult run(TOPTW problem, int capacity) {
+        TOPTWGRASP grasp = new TOPTWGRASP(new TOPTWSolution(problem));
+        grasp.setReportWriter(new TOPTWReportWriter(System.out, TOPTWReportWriter.Verbosity.NONE));
+        grasp.setSelectionStrategy(new TOPTWFuzzyBestSelection());
+        grasp.setSeenSolutionsCapacity(capacity);
+        return grasp.parallelGRASP(200, 2, 1, 9L);
+    }
+
+    /**
+     * @brief Method to build the routes of a solution again, inserting the POIs in reverse order.
+     * @param solution
+     * @return A new solution with the same routes.
+     */
+    private static TOPTWSolution rebuild(TOPTWSolution solution) {
+        TOPTWSolution rebuilt = new TOPTWSolution(solution.getProblem());
+        rebuilt.initSolution();
+        for(int k = 1; k < solution.getCreatedRoutes(); k++) {
+            assertEquals(solution.getIndexRoute(k), rebuilt.addRoute());
+        }
+        for(int k = 0; k < solution.getCreatedRoutes(); k++) {
+            int depot = solution.getIndexRoute(k);
+            // cada POI se inserta delante de los ya insertados
+            for(int c = solution.getPredecessor(depot); c != depot; c = solution.getPredecessor(c)) {
+                rebuilt.insertAfter(c, depot);
+            }
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,56 @@
+package top;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * @brief Tests of the streams split from a TOPTWXoshiroRandomSource.
+ */
+public class TOPTWXoshiroRandomSourceTest extends TestCase {
+    private static final int PREFIX = 8;
+
+    public void testNestedSplitDoesNotRepeatTheParent() {
+        TOPTWRandomSource parent = new TOPTWXoshiroRandomSource(42L);
+        TOPTWRandomSource child = parent.split();
+        TOPTWRandomSource grandchild = child.split();
+        assertDistinct(parent, child, grandchild);
+    }
+
+    public void testSplitTreeGivesDistinctStreams() {
+        List<TOPTWRandomSource> sources = new ArrayList<TOPTWRandomSource>();
+        sources.add(new TOPTWXoshiroRandomSource(42L));
+        // cada ronda divide todas las fuentes, también las que ya son hijas
+        for(int round = 0; round < 4; round++) {
+            int count = sources.size();
+            for(int i = 0; i < count; i++) {
+                sources.add(sources.get(i).split());
+            }
+        }
+        assertDistinct(sources.toArray(new TOPTWRandomSource[0]));
+    }
+
+    public void testSplitIsReproducible() {
+        TOPTWRandomSource first = new TOPTWXoshiroRandomSource(7L).split().split();
+        TOPTWRandomSource second = new TOPTWXoshiroRandomSource(7L).split().split();
+        for(int i = 0; i < TOPTWXoshiroRandomSourceTest.PREFIX; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+    }
+
+    /**
+     * @brief Method to check that no two sources start with the same outputs.
+     * @param sources
+     */
+    private static void assertDistinct(TOPTWRandomSource... sources) {
+        Set<Long> outputs = new HashSet<Long>();
+        for(int s = 0; s < sources.length; s++) {
+            for(int i = 0; i < TOPTWXoshiroRandomSourceTest.PREFIX; i++) {
+                assertTrue("source " + s + " repeats an output", outputs.add(sources[s].nextLong()));
+            }
+        }
+    }
+}